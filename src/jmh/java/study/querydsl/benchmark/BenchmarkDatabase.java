@@ -0,0 +1,104 @@
+package study.querydsl.benchmark;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 벤치마크용 인메모리 H2 + JPA 환경. 스프링 부트 컨텍스트 없이 애플리케이션과 같은 엔티티/네이밍 전략만 올린다.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean factoryBean;
+    private final EntityManagerFactory emf;
+
+    private BenchmarkDatabase(String name, Map<String, Object> extraProperties) {
+        this.dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        properties.put("hibernate.implicit_naming_strategy",
+                "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy");
+        properties.putAll(extraProperties);
+
+        this.factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("study.querydsl.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        this.emf = factoryBean.getObject();
+    }
+
+    public static BenchmarkDatabase create(String name) {
+        return new BenchmarkDatabase(name, Map.of());
+    }
+
+    public static BenchmarkDatabase create(String name, Map<String, Object> extraProperties) {
+        return new BenchmarkDatabase(name, extraProperties);
+    }
+
+    /**
+     * 팀 teamCount 개와 회원 memberCount 명을 JDBC 배치로 넣는다. 회원은 팀에 round-robin 으로, 나이는 0~99 로 나눈다.
+     */
+    public void seed(int teamCount, int memberCount) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insertTeam = connection.prepareStatement(
+                    "insert into team (id, name) values (?, ?)")) {
+                for (int i = 1; i <= teamCount; i++) {
+                    insertTeam.setLong(1, i);
+                    insertTeam.setString(2, "team" + i);
+                    insertTeam.addBatch();
+                }
+                insertTeam.executeBatch();
+            }
+            try (PreparedStatement insertMember = connection.prepareStatement(
+                    "insert into member (member_id, username, username_lower, age, team_id) values (?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= memberCount; i++) {
+                    insertMember.setLong(1, i);
+                    insertMember.setString(2, "member" + i);
+                    insertMember.setString(3, "member" + i);
+                    insertMember.setInt(4, i % 100);
+                    insertMember.setLong(5, (i % teamCount) + 1);
+                    insertMember.addBatch();
+                    if (i % SEED_BATCH_SIZE == 0) {
+                        insertMember.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insertMember.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to seed benchmark database", e);
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public EntityManager createEntityManager() {
+        return emf.createEntityManager();
+    }
+
+    @Override
+    public void close() {
+        factoryBean.destroy();
+    }
+}
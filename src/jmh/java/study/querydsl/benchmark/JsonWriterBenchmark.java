@@ -0,0 +1,63 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.web.MemberTeamJsonConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page&lt;MemberTeamDto&gt; 를 기본 Jackson 직렬화(PageImpl 전체)와 MemberTeamJsonConverter 로 쓸 때를 비교한다.
+ * row 당 할당량은 gc.alloc.rate.norm 을 rows 로 나눠서 본다. 출력 버퍼는 재사용하므로 할당에 들어가지 않는다.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=JsonWriterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonWriterBenchmark {
+
+    @Param({"20", "1000"})
+    int rows;
+
+    private ObjectMapper objectMapper;
+    private MemberTeamJsonConverter converter;
+    private Page<MemberTeamDto> page;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        converter = new MemberTeamJsonConverter(objectMapper.getFactory());
+
+        List<MemberTeamDto> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, rows), rows * 50L);
+        out = new ByteArrayOutputStream(rows * 128);
+    }
+
+    @Benchmark
+    public int jacksonPageImpl() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int leanConverter() throws IOException {
+        out.reset();
+        converter.writePage(page, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.web.ByteBufferPool;
+import study.querydsl.web.MemberColumns;
+import study.querydsl.web.MemberColumnsConverter;
+import study.querydsl.web.MemberColumnsDecoder;
+import study.querydsl.web.MemberTeamJsonConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 페이지를 lean JSON 과 application/x-member-columns 로 쓰고 읽을 때를 비교한다.
+ * 응답 크기는 Setup 에서 한 번 로그로 남긴다.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=MemberColumnsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberColumnsBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberColumnsBenchmark.class);
+
+    @Param({"20", "1000"})
+    int rows;
+
+    private ObjectMapper objectMapper;
+    private MemberTeamJsonConverter jsonConverter;
+    private MemberColumnsConverter columnsConverter;
+    private Page<MemberTeamDto> page;
+    private ByteArrayOutputStream out;
+    private byte[] json;
+    private byte[] columns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        jsonConverter = new MemberTeamJsonConverter(objectMapper.getFactory());
+        columnsConverter = new MemberColumnsConverter(new ByteBufferPool(4, 4 * 1024 * 1024));
+
+        List<MemberTeamDto> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, rows), rows * 50L);
+        out = new ByteArrayOutputStream(rows * 128);
+
+        writeJson();
+        json = out.toByteArray();
+        writeColumns();
+        columns = out.toByteArray();
+        log.info("rows={} json={} bytes columns={} bytes", rows, json.length, columns.length);
+    }
+
+    @Benchmark
+    public int writeJson() throws IOException {
+        out.reset();
+        jsonConverter.writePage(page, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeColumns() throws IOException {
+        out.reset();
+        columnsConverter.write(page.getContent(), page.getTotalElements(), page.getNumber(), page.getSize(), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public JsonNode readJson() throws IOException {
+        return objectMapper.readTree(json);
+    }
+
+    @Benchmark
+    public MemberColumns readColumns() {
+        return MemberColumnsDecoder.decode(columns);
+    }
+}
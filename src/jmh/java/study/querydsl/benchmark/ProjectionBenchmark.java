@@ -0,0 +1,127 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 의 DTO 조회 방식들을 MemberTeamDto 기준으로 비교한다.
+ * 한 번의 operation 이 members 건 전체를 읽으므로 row 당 비용은 결과를 members 로 나눠서 본다.
+ * 할당량은 jmh { profilers = ['gc'] } 설정의 gc.alloc.rate.norm 을 참고.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int members;
+
+    private BenchmarkDatabase database;
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create("projection" + members);
+        database.seed(10, members);
+        em = database.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> setter() {
+        return queryFactory
+                .select(Projections.bean(MemberTeamDto.class,
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> field() {
+        return queryFactory
+                .select(Projections.fields(MemberTeamDto.class,
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> constructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryProjection() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    // 다른 방식과 같은 결과를 내도록 Tuple 을 DTO 로 옮기는 비용까지 잰다
+    @Benchmark
+    public List<MemberTeamDto> tuple() {
+        List<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            result.add(new MemberTeamDto(row.get(member.id), row.get(member.username), row.get(member.age),
+                    row.get(team.id), row.get(team.name)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpqlNew() {
+        return em.createQuery("select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)" +
+                        " from Member m left join m.team t", MemberTeamDto.class)
+                .getResultList();
+    }
+}
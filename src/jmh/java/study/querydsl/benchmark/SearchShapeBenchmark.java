@@ -0,0 +1,176 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberQueryCache;
+import study.querydsl.repository.MemberSearchShape;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberRepositoryImpl.search 의 16 가지 조건 모양을 인덱스가 있을 때와 없을 때로 나눠 잰다.
+ * 각 trial 시작 시 같은 조건의 SQL 에 대한 H2 EXPLAIN 결과를 로그로 남기므로 plan 과 지연 시간을 같이 볼 수 있다.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=SearchShapeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchShapeBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchShapeBenchmark.class);
+
+    private static final int MEMBERS = 1_000_000;
+    private static final int TEAMS = 1_000;
+
+    private static final String[] INDEXES = {"idx_member_username", "idx_member_team_age", "idx_team_name"};
+
+    // MemberSearchShape 의 비트 마스크 (username=1, teamName=2, ageGoe=4, ageLoe=8)
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
+    int shape;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    private BenchmarkDatabase database;
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+    private MemberQueryCache queryCache;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.create("shape" + shape + indexed);
+        database.seed(TEAMS, MEMBERS);
+        if (!indexed) {
+            dropIndexes();
+        }
+        em = database.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        queryCache = new MemberQueryCache(em, new SimpleMeterRegistry());
+        condition = condition(shape);
+
+        log.info("shape={} indexed={}\n{}", MemberSearchShape.of(condition).describe(), indexed, explain(condition));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return queryCache.fetch("search", condition, shape -> shape.joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member), true)
+                .where(
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                ));
+    }
+
+    // 조건마다 고른 값이다. username 은 1 건, teamName 은 1,000 건, 나이 범위는 6% 정도가 걸린다
+    private static MemberSearchCondition condition(int mask) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((mask & 1) != 0) condition.setUsername("member500000");
+        if ((mask & 2) != 0) condition.setTeamName("team7");
+        if ((mask & 4) != 0) condition.setAgeGoe(30);
+        if ((mask & 8) != 0) condition.setAgeLoe(35);
+        return condition;
+    }
+
+    /**
+     * member.team_id 외래키는 먼저 만들어진 idx_member_team_age 를 자기 인덱스로 쓰므로 그대로는 지울 수 없다 (90085).
+     * 외래키를 잠깐 지웠다가 인덱스를 지운 뒤 다시 걸면 H2 가 team_id 만의 인덱스를 새로 만든다.
+     * 인덱스를 따로 만들지 않은 스키마에도 외래키 인덱스는 있으므로 그 상태를 기준선으로 잰다.
+     */
+    private void dropIndexes() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            List<String> foreignKeys = new ArrayList<>();
+            try (ResultSet rs = connection.getMetaData().getImportedKeys(null, null, "MEMBER")) {
+                while (rs.next()) {
+                    foreignKeys.add(rs.getString("FK_NAME"));
+                }
+            }
+            for (String foreignKey : foreignKeys) {
+                statement.execute("alter table member drop constraint " + foreignKey);
+            }
+            for (String index : INDEXES) {
+                statement.execute("drop index " + index);
+            }
+            for (String foreignKey : foreignKeys) {
+                statement.execute("alter table member add constraint " + foreignKey
+                        + " foreign key (team_id) references team (id)");
+            }
+
+            List<String> remaining = new ArrayList<>();
+            for (String table : new String[]{"MEMBER", "TEAM"}) {
+                try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+                    while (rs.next()) {
+                        String name = rs.getString("INDEX_NAME");
+                        for (String index : INDEXES) {
+                            if (index.equalsIgnoreCase(name)) {
+                                remaining.add(name);
+                            }
+                        }
+                    }
+                }
+            }
+            if (!remaining.isEmpty()) {
+                throw new IllegalStateException("indexes not dropped: " + remaining);
+            }
+        }
+    }
+
+    // 하이버네이트가 만드는 SQL 과 같은 모양의 SQL 을 값을 넣어서 EXPLAIN 한다
+    private String explain(MemberSearchCondition condition) throws SQLException {
+        List<String> where = new ArrayList<>();
+        if (condition.getUsername() != null) where.add("m.username = '" + condition.getUsername() + "'");
+        if (condition.getTeamName() != null) where.add("t.name = '" + condition.getTeamName() + "'");
+        if (condition.getAgeGoe() != null) where.add("m.age >= " + condition.getAgeGoe());
+        if (condition.getAgeLoe() != null) where.add("m.age <= " + condition.getAgeLoe());
+
+        String sql = "select m.member_id, m.username, m.age, t.id, t.name" +
+                // MemberSearchShape.joinTeam 과 같게 teamName 조건이 있으면 inner join
+                " from member m " + (condition.getTeamName() != null ? "inner" : "left outer") +
+                " join team t on m.team_id = t.id" +
+                (where.isEmpty() ? "" : " where " + String.join(" and ", where));
+
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("explain analyze " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberQueryCache;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 대소문자 무시 username 검색. lower(username) like 로 전체를 훑는 방식과
+ * 소문자 컬럼(username_lower) 인덱스 범위 조회(MemberSearchCondition.usernamePrefix + ignoreCase)를 비교한다.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=UsernamePrefixBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsernamePrefixBenchmark {
+
+    @Param({"100000", "1000000"})
+    int members;
+
+    // "MEMBER12345" 는 member12345, member123450 ~ member123459 의 11 건
+    @Param({"MEMBER12345", "Member1"})
+    String prefix;
+
+    private BenchmarkDatabase database;
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+    private MemberQueryCache queryCache;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create("prefix" + members);
+        database.seed(10, members);
+        em = database.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        queryCache = new MemberQueryCache(em, new SimpleMeterRegistry());
+
+        condition = new MemberSearchCondition();
+        condition.setUsernamePrefix(prefix);
+        condition.setIgnoreCase(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> containsIgnoreCase() {
+        return select().where(member.username.containsIgnoreCase(prefix)).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> startsWithIgnoreCase() {
+        return select().where(member.username.startsWithIgnoreCase(prefix)).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> normalizedColumnRange() {
+        return queryCache.fetch("search", condition, shape -> select()
+                .where(
+                        shape.usernameEq(),
+                        shape.usernameStartsWith()
+                ));
+    }
+
+    private JPAQuery<MemberTeamDto> select() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+}
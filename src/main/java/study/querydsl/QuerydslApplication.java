@@ -3,19 +3,21 @@ package study.querydsl;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 
 import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
-//	@Bean
-//	JPAQueryFactory jpaQueryFactory(EntityManager em){
-//		return new JPAQueryFactory(em);
-//	}
+	@Bean
+	JPAQueryFactory jpaQueryFactory(EntityManager em){
+		return new JPAQueryFactory(em);
+	}
 }
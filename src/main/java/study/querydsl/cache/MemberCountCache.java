@@ -0,0 +1,100 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.ReplicaLagWindow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.AfterCompletion;
+import study.querydsl.event.MemberDataChangedEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 검색 조건별 count 쿼리 결과 캐시.
+ * member / team 이 바뀌면 (엔티티 변경이든 벌크 연산이든) 전부 비운다. 조건 조합마다 영향 범위를 따지는 것보다
+ * 쓰기 빈도가 낮은 지금은 전체 무효화가 단순하고 안전하다.
+ * replica 로 읽으면 복제 지연이 지난 뒤 한 번 더 비운다 ({@link ReplicaLagWindow}).
+ * <p>
+ * 읽기/쓰기 트랜잭션 안에서는 자기가 방금 바꾼(아직 커밋 안 된) 데이터를 세야 하므로 캐시를 읽지도 채우지도 않는다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final boolean enabled;
+    private final ReplicaLagWindow replicaLag;
+    private final Cache<MemberSearchCondition, Long> cache;
+    // 로딩 중에 무효화가 일어나면 오래된 값을 넣지 않도록 세대 번호로 확인한다
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberCountCache(CountCacheProperties properties, ReplicaLagWindow replicaLag, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled() && !replicaLag.isUnbounded();
+        this.replicaLag = replicaLag;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberCount");
+    }
+
+    public long get(MemberSearchCondition condition, Supplier<Long> countQuery) {
+        if (!isApplicable()) {
+            return countQuery.get();
+        }
+
+        MemberSearchCondition key = condition.normalize();
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startGeneration = generation.get();
+        long total = countQuery.get();
+        cache.put(key, total);
+        if (generation.get() != startGeneration) {
+            cache.invalidate(key);
+        }
+        return total;
+    }
+
+    // 통계(hit/miss)에 잡히지 않게 확인만 한다
+    public boolean contains(MemberSearchCondition condition) {
+        return isApplicable() && cache.asMap().containsKey(condition.normalize());
+    }
+
+    private boolean isApplicable() {
+        return enabled && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 변경한 트랜잭션 자신이 바로 다시 조회하는 경우를 위해 즉시 비우고,
+    // 커밋 전에 다른 트랜잭션이 예전 값으로 다시 채웠을 수 있으니 트랜잭션이 끝날 때 한 번 더 비운다
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        invalidateAll();
+        if (!AfterCompletion.runOnce(this, this::invalidateAfterCompletion)) {
+            replicaLag.afterLag(this::invalidateAll);
+        }
+    }
+
+    private void invalidateAfterCompletion() {
+        invalidateAll();
+        replicaLag.afterLag(this::invalidateAll);
+    }
+}
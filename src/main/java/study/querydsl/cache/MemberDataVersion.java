@@ -0,0 +1,114 @@
+package study.querydsl.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.ReplicaLagWindow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.AfterCompletion;
+import study.querydsl.event.MemberDataChangedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member / team 데이터 버전. 바뀔 때마다(엔티티 변경, 벌크 연산 모두) 올라가며, 검색 응답의 ETag 를 만든다.
+ * <p>
+ * 버전은 이 인스턴스 메모리에만 있으므로 ETag 에 기동할 때 정한 epoch 를 넣어서 재시작하거나 다른 인스턴스로 가면
+ * 예전 ETag 가 맞지 않게 한다. 이 애플리케이션을 거치지 않은 DB 변경은 알지 못한다.
+ * <p>
+ * replica 로 읽으면 커밋 뒤에도 복제 지연 동안 새 버전으로 예전 데이터를 응답할 수 있다. 그래서 지연 시간이 지난 뒤
+ * 버전을 한 번 더 올리고, 지연에 상한이 없는 설정이면 ETag 를 쓰지 않는다 ({@link ReplicaLagWindow}).
+ */
+@Component
+public class MemberDataVersion {
+
+    private final ReplicaLagWindow replicaLag;
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    private final AtomicLong version = new AtomicLong();
+
+    public MemberDataVersion(ReplicaLagWindow replicaLag) {
+        this.replicaLag = replicaLag;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 조회하기 전에 만들어야 한다. 조회 도중 데이터가 바뀌면 버전이 올라가서 다음 요청은 새 ETag 를 받는다.
+     * 같은 URL 이 Accept 에 따라 다른 표현(JSON, columns)으로 응답하므로 표현의 media type 도 키에 넣는다.
+     * 키는 SHA-256 으로 줄인다. 32 bit 해시는 같은 버전 안에서 다른 조회와 겹쳐 엉뚱한 304 를 줄 수 있다.
+     * 예) W/"5f1c2a-42-q3Vx...(43자)"
+     *
+     * @return ETag 를 쓰지 않으면 null
+     */
+    public String etag(MemberSearchCondition condition, Pageable pageable, MediaType representation) {
+        if (replicaLag.isUnbounded()) {
+            return null;
+        }
+        return "W/\"" + epoch + "-" + version.get() + "-" + sha256(canonicalKey(condition, pageable, representation)) + "\"";
+    }
+
+    // 값마다 길이를 앞에 붙여서 값에 구분자가 들어 있어도 서로 다른 조회가 같은 문자열이 되지 않게 한다
+    static String canonicalKey(MemberSearchCondition condition, Pageable pageable, MediaType representation) {
+        MemberSearchCondition normalized = condition.normalize();
+        StringBuilder key = new StringBuilder();
+        append(key, representation.toString());
+        append(key, normalized.getUsername());
+        append(key, normalized.getUsernamePrefix());
+        append(key, String.valueOf(normalized.isIgnoreCase()));
+        append(key, normalized.getTeamName());
+        append(key, normalized.getAgeGoe() == null ? null : normalized.getAgeGoe().toString());
+        append(key, normalized.getAgeLoe() == null ? null : normalized.getAgeLoe().toString());
+        if (pageable != null) {
+            append(key, String.valueOf(pageable.getPageNumber()));
+            append(key, String.valueOf(pageable.getPageSize()));
+            for (Sort.Order order : pageable.getSort()) {
+                append(key, order.getProperty());
+                append(key, order.getDirection().name());
+                append(key, String.valueOf(order.isIgnoreCase()));
+                append(key, order.getNullHandling().name());
+            }
+        }
+        return key.toString();
+    }
+
+    private static void append(StringBuilder key, String value) {
+        if (value == null) {
+            key.append("-;");
+        } else {
+            key.append(value.length()).append(':').append(value).append(';');
+        }
+    }
+
+    private static String sha256(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // 모든 JVM 에 있어야 하는 알고리즘
+        }
+    }
+
+    // 커밋 전에 다른 요청이 새 버전으로 예전 데이터를 읽었을 수 있으니 트랜잭션이 끝날 때 한 번 더 올린다
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        version.incrementAndGet();
+        if (!AfterCompletion.runOnce(this, this::incrementAfterCompletion)) {
+            replicaLag.afterLag(version::incrementAndGet);
+        }
+    }
+
+    private void incrementAfterCompletion() {
+        version.incrementAndGet();
+        replicaLag.afterLag(version::incrementAndGet);
+    }
+}
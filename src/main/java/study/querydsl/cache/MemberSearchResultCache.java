@@ -0,0 +1,245 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.ReplicaLagWindow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.event.AfterCompletion;
+import study.querydsl.event.MemberDataChangedEvent;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * search / searchPage 결과(List&lt;MemberTeamDto&gt;) 캐시. (쿼리 이름, 조건, 페이지) 가 키이고 추정 메모리 크기로 제한한다.
+ * <p>
+ * 무효화는 범위(scope)별 도장으로 한다. 변경이 생기면 영향받는 범위에 새 순번을 찍고, 항목은 자신이 조회를 시작한 순번이
+ * 그 범위의 도장보다 작으면 버린다. 그래서 무효화는 O(1) 이고, 조회 도중에 들어온 변경도 자동으로 걸러진다.
+ * <ul>
+ *     <li>teamName 조건이 있는 항목: 해당 팀 이름 범위. 회원 변경 이벤트의 teamId 를 이름으로 바꿔서 찍는다</li>
+ *     <li>teamName 조건이 없는 항목: 회원이 바뀌면 항상</li>
+ *     <li>팀 변경, 벌크 update/delete(어떤 row 인지 모름): 전부</li>
+ * </ul>
+ * teamId -&gt; 이름은 캐시한 결과 행에서 배운다. 모르는 teamId 가 오면 teamName 조건이 있는 항목 전부를 버린다.
+ * <p>
+ * 읽기/쓰기 트랜잭션 안에서는 아직 flush 되지 않은 변경이 있을 수 있으므로 캐시를 쓰지 않는다.
+ * <p>
+ * replica 로 읽으면 커밋 뒤에도 복제 지연 동안 예전 값으로 채워질 수 있어서 지연 시간이 지난 뒤 같은 범위를 한 번 더 찍는다
+ * ({@link ReplicaLagWindow}). 지연에 상한이 없는 설정이면 캐시를 쓰지 않는다.
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private static final String ALL = "*";
+    private static final String UNFILTERED = "unfiltered";
+    private static final String TEAM_FILTERED = "team:*";
+    private static final String TEAM_PREFIX = "team:";
+
+    private final boolean enabled;
+    private final ReplicaLagWindow replicaLag;
+    private final int maximumRows;
+    private final Cache<Key, Entry> cache;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>(); // scope -> 도장. 팀 수만큼만 늘어난다
+    private final Map<Long, String> teamNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<String>> pendingScopes = ThreadLocal.withInitial(HashSet::new);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+
+    public MemberSearchResultCache(ResultCacheProperties properties, ReplicaLagWindow replicaLag,
+                                   MeterRegistry registry) {
+        this.enabled = properties.isEnabled();
+        this.replicaLag = replicaLag;
+        this.maximumRows = properties.getMaximumRows();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .expireAfterWrite(properties.getTtl())
+                .build();
+
+        this.hits = registry.counter("member.search.cache", "result", "hit");
+        this.misses = registry.counter("member.search.cache", "result", "miss");
+        this.stale = registry.counter("member.search.cache", "result", "stale");
+        Gauge.builder("member.search.cache.size", cache, c -> c.policy().eviction().get().weightedSize().orElse(0))
+                .baseUnit("bytes")
+                .description("estimated memory held by cached search results")
+                .register(registry);
+        Gauge.builder("member.search.cache.entries", cache, Cache::estimatedSize)
+                .register(registry);
+    }
+
+    public List<MemberTeamDto> get(String name, MemberSearchCondition condition, Pageable pageable,
+                                   Supplier<List<MemberTeamDto>> query) {
+        if (!isApplicable()) {
+            return query.get();
+        }
+
+        Key key = new Key(name, condition.normalize(), pageable);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (isValid(key, entry)) {
+                hits.increment();
+                return entry.rows;
+            }
+            stale.increment();
+            cache.asMap().remove(key, entry);
+        } else {
+            misses.increment();
+        }
+
+        long startedAt = sequence.get();
+        List<MemberTeamDto> rows = Collections.unmodifiableList(query.get());
+        if (rows.size() <= maximumRows) {
+            learnTeamNames(rows);
+            cache.put(key, new Entry(rows, startedAt));
+        }
+        return rows;
+    }
+
+    public void invalidateAll() {
+        invalidate(ALL);
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        Set<String> scopes = scopesOf(event);
+        scopes.forEach(this::invalidate);
+
+        // 커밋 전에 다른 트랜잭션이 예전 값으로 다시 채웠을 수 있으니 트랜잭션이 끝날 때 같은 범위를 한 번 더 찍는다
+        pendingScopes.get().addAll(scopes);
+        if (!AfterCompletion.runOnce(this, this::invalidatePending)) {
+            pendingScopes.remove();
+            replicaLag.afterLag(() -> scopes.forEach(this::invalidate));
+        }
+    }
+
+    private Set<String> scopesOf(MemberDataChangedEvent event) {
+        if (event.isBulk() || event.getTable() == MemberDataChangedEvent.Table.TEAM) {
+            if (event.getTable() == MemberDataChangedEvent.Table.TEAM) {
+                teamNames.clear(); // 이름이 바뀌었을 수 있다
+            }
+            return Set.of(ALL);
+        }
+        Set<String> scopes = new HashSet<>();
+        scopes.add(UNFILTERED);
+        for (Long teamId : event.getTeamIds()) {
+            String teamName = teamNames.get(teamId);
+            scopes.add(teamName != null ? TEAM_PREFIX + teamName : TEAM_FILTERED);
+        }
+        return scopes;
+    }
+
+    private void invalidatePending() {
+        Set<String> scopes = pendingScopes.get();
+        pendingScopes.remove();
+        scopes.forEach(this::invalidate);
+        replicaLag.afterLag(() -> scopes.forEach(this::invalidate));
+    }
+
+    private void invalidate(String scope) {
+        invalidatedAt.put(scope, sequence.incrementAndGet());
+        if (ALL.equals(scope)) {
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean isValid(Key key, Entry entry) {
+        if (entry.startedAt < stamp(ALL)) {
+            return false;
+        }
+        String teamName = key.condition.getTeamName();
+        if (teamName == null) {
+            return entry.startedAt >= stamp(UNFILTERED);
+        }
+        return entry.startedAt >= stamp(TEAM_FILTERED) && entry.startedAt >= stamp(TEAM_PREFIX + teamName);
+    }
+
+    private long stamp(String scope) {
+        return invalidatedAt.getOrDefault(scope, 0L);
+    }
+
+    private void learnTeamNames(List<MemberTeamDto> rows) {
+        for (MemberTeamDto row : rows) {
+            if (row.getTeamId() != null && row.getTeamName() != null) {
+                teamNames.putIfAbsent(row.getTeamId(), row.getTeamName());
+            }
+        }
+    }
+
+    private boolean isApplicable() {
+        return enabled && !replicaLag.isUnbounded() && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static class Key {
+
+        private final String name;
+        private final MemberSearchCondition condition;
+        private final long offset;
+        private final int limit;
+        private final String sort;
+
+        Key(String name, MemberSearchCondition condition, Pageable pageable) {
+            this.name = name;
+            this.condition = condition;
+            this.offset = pageable == null ? -1 : pageable.getOffset();
+            this.limit = pageable == null ? -1 : pageable.getPageSize();
+            this.sort = pageable == null ? "" : pageable.getSort().toString();
+        }
+    }
+
+    private static class Entry {
+
+        // 대략적인 64bit JVM 기준 크기. 정확할 필요는 없고 결과 크기에 비례하면 된다
+        private static final int ENTRY_OVERHEAD = 200;
+        private static final int ROW_OVERHEAD = 16 + 8 + 4 + 8 + 8 + 8 + 16 + 16 + 4; // dto + 참조, Long 2개, 리스트 슬롯
+        private static final int STRING_OVERHEAD = 40;
+
+        private final List<MemberTeamDto> rows;
+        private final long startedAt;
+        private final int weight;
+
+        Entry(List<MemberTeamDto> rows, long startedAt) {
+            this.rows = rows;
+            this.startedAt = startedAt;
+            this.weight = weigh(rows);
+        }
+
+        private static int weigh(List<MemberTeamDto> rows) {
+            long bytes = ENTRY_OVERHEAD;
+            for (MemberTeamDto row : rows) {
+                bytes += ROW_OVERHEAD + sizeOf(row.getUsername()) + sizeOf(row.getTeamName());
+            }
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+
+        private static int sizeOf(String value) {
+            return value == null ? 0 : STRING_OVERHEAD + value.length() * 2;
+        }
+    }
+}
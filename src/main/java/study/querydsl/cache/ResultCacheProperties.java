@@ -0,0 +1,19 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.result-cache")
+public class ResultCacheProperties {
+
+    private boolean enabled = true;
+    private DataSize maximumSize = DataSize.ofMegabytes(64); // 추정 메모리 기준
+    private Duration ttl = Duration.ofMinutes(5);
+    private int maximumRows = 10_000; // 이보다 큰 결과는 캐시하지 않는다
+}
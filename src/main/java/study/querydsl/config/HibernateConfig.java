@@ -0,0 +1,58 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.stat.HibernateMetrics;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.event.DataChangeIntegrator;
+import study.querydsl.event.DataChangeListener;
+import study.querydsl.event.MemberSearchViewListener;
+import study.querydsl.event.TeamStatsListener;
+import study.querydsl.metrics.RequestStatisticsFactory;
+import study.querydsl.repository.MemberSearchViewProperties;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class HibernateConfig {
+
+    private final DataChangeListener dataChangeListener;
+    private final TeamStatsListener teamStatsListener;
+    private final MemberSearchViewListener memberSearchViewListener;
+    private final MemberSearchViewProperties memberSearchViewProperties;
+
+    @Bean
+    public HibernatePropertiesCustomizer dataChangeHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, dataChangeListener);
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(new DataChangeIntegrator(
+                            dataChangeListener, teamStatsListener, memberSearchViewListener,
+                            memberSearchViewProperties.isMaintained())));
+        };
+    }
+
+    // 요청 단위 통계. generate_statistics 가 켜져 있어야 동작한다
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsHibernateCustomizer() {
+        return properties -> properties.put(StatisticsInitiator.STATS_BUILDER, new RequestStatisticsFactory());
+    }
+
+    // hibernate.second.level.cache.* (region 별 hit/miss/put), hibernate.query.cache.* 등.
+    // micrometer-core 의 deprecated binder 대신 hibernate-micrometer 를 쓰므로 Boot 의 HibernateMetricsAutoConfiguration 은 끈다
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory",
+                Collections.emptyList());
+    }
+}
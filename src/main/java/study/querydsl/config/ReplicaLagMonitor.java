@@ -0,0 +1,93 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * primary 의 replication_heartbeat 에 주기적으로 현재 시각을 쓰고, replica 에 복제된 값과 비교해서 지연을 잰다.
+ * 지연이 maxLag 을 넘거나 잴 수 없으면(복제가 안 되는 로컬 H2 포함) replica 를 쓰지 않는다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final String CREATE_TABLE =
+            "create table if not exists replication_heartbeat (id int primary key, beat bigint not null)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lagMillis = -1; // -1: 아직 모름
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, ReplicaProperties properties) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.properties = properties;
+        this.replicaUsable = !properties.isLagCheckEnabled();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(MeterRegistry registry) {
+        Gauge.builder("member.datasource.replica.lag", this, m -> m.lagMillis / 1000.0)
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("member.datasource.replica.usable", this, m -> m.replicaUsable ? 1 : 0)
+                .register(registry);
+
+        if (!properties.isLagCheckEnabled()) {
+            return;
+        }
+        primary.execute(CREATE_TABLE);
+        long interval = properties.getLagCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    void check() {
+        try {
+            long now = System.currentTimeMillis();
+            if (primary.update("update replication_heartbeat set beat = ? where id = 1", now) == 0) {
+                primary.update("insert into replication_heartbeat (id, beat) values (1, ?)", now);
+            }
+
+            List<Long> beats = replica.queryForList("select beat from replication_heartbeat where id = 1", Long.class);
+            lagMillis = beats.isEmpty() ? -1 : Math.max(0, now - beats.get(0));
+        } catch (RuntimeException e) {
+            log.debug("replica lag check failed", e);
+            lagMillis = -1;
+        }
+
+        boolean usable = lagMillis >= 0 && lagMillis <= properties.getMaxLag().toMillis();
+        if (usable != replicaUsable) {
+            log.warn("replica {} (lag={}ms, maxLag={})", usable ? "back in rotation" : "out of rotation",
+                    lagMillis, properties.getMaxLag());
+        }
+        replicaUsable = usable;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * replica 로 읽을 때 커밋된 변경이 아직 복제되지 않았을 수 있는 시간.
+ * <p>
+ * 커밋 직후 replica 에서 읽은 예전 값은 커밋 뒤에 무효화해도 캐시에 들어갈 수 있다. 그래서 캐시/ETag 는 이 시간이 지난 뒤
+ * 한 번 더 무효화한다. ReplicaLagMonitor 는 지연이 maxLag 을 넘으면 replica 를 빼지만 lagCheckInterval 마다 재므로
+ * 그만큼 여유를 둔다. 지연 검사를 끄면 상한이 없으므로 캐시를 쓰지 않아야 한다 ({@link #isUnbounded()}).
+ */
+@Component
+public class ReplicaLagWindow implements DisposableBean {
+
+    private final boolean unbounded;
+    private final long delayMillis;
+    private final ScheduledExecutorService scheduler; // replica 를 안 쓰면 null
+
+    public ReplicaLagWindow(ReplicaProperties properties) {
+        boolean enabled = properties.isEnabled();
+        this.unbounded = enabled && !properties.isLagCheckEnabled();
+        this.delayMillis = properties.getMaxLag().toMillis() + 2 * properties.getLagCheckInterval().toMillis();
+        this.scheduler = enabled && !unbounded ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-window");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * replica 를 쓰지 않는 설정. 테스트용
+     */
+    public static ReplicaLagWindow none() {
+        return new ReplicaLagWindow(new ReplicaProperties());
+    }
+
+    public boolean isUnbounded() {
+        return unbounded;
+    }
+
+    /**
+     * replica 를 쓰면 지연 시간이 지난 뒤 action 을 실행한다. 쓰지 않으면 아무것도 하지 않는다.
+     */
+    public void afterLag(Runnable action) {
+        if (scheduler != null) {
+            schedule(action, delayMillis);
+        }
+    }
+
+    protected void schedule(Runnable action, long delayMillis) {
+        scheduler.schedule(action, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
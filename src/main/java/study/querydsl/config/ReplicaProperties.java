@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false; // 끄면 spring.datasource 하나만 쓴다
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private int maximumPoolSize = 10;
+
+    private boolean lagCheckEnabled = true;
+    private Duration maxLag = Duration.ofSeconds(5); // 이보다 뒤처지면 읽기도 primary 로 보낸다
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+}
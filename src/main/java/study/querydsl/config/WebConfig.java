@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.web.ByteBufferPool;
+import study.querydsl.web.MemberColumnsConverter;
+import study.querydsl.web.MemberTeamJsonConverter;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final boolean leanWriter;
+
+    public WebConfig(ObjectMapper objectMapper, @Value("${member.json.lean-writer:true}") boolean leanWriter) {
+        this.objectMapper = objectMapper;
+        this.leanWriter = leanWriter;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 기본 Jackson 컨버터보다 먼저 MemberTeamDto 응답을 가져간다
+        if (leanWriter) {
+            converters.add(0, new MemberTeamJsonConverter(objectMapper.getFactory()));
+        }
+        // 맨 뒤에 둬서 Accept 가 */* 이면 JSON, application/x-member-columns 일 때만 컬럼 형식이 된다
+        converters.add(new MemberColumnsConverter(new ByteBufferPool(16, 4 * 1024 * 1024)));
+    }
+}
@@ -3,45 +3,21 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.service.MemberSeeder;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberSeeder memberSeeder;
 
+    // 데이터 크기/분포는 member.seed.* 설정으로 조절
     @PostConstruct
     public void init() {
-        initMemberService.init();
+        memberSeeder.seed();
     }
 
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-        
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+ i, i ,selectedTeam));
-            }
-            
-        }
-    }
-    
 }
@@ -1,35 +1,147 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.cache.MemberDataVersion;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.dto.CursorResult;
+import study.querydsl.dto.InvalidRequestException;
+import study.querydsl.dto.MemberImportResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberImportReader;
+import study.querydsl.service.MemberImportService;
+import study.querydsl.web.MemberColumnsConverter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberImportService memberImportService;
+    private final ObjectMapper objectMapper;
+    private final MemberDataVersion memberDataVersion;
 
+    // 같은 조건으로 폴링하는 클라이언트는 If-None-Match 로 보내면 DB 를 거치지 않고 304 를 받는다
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request,
+                                              HttpServletResponse response) {
+        if (request.checkNotModified(etag(condition, null, request, response))) {
+            return null;
+        }
         return memberJpaRepository.search(condition);
     }
 
+    // fields=username,age 처럼 필요한 필드만 조회하고 응답한다. teamName 이 없으면 team 조인도 하지 않는다
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchCondition condition, @RequestParam String fields) {
+        return memberRepository.searchFields(condition, MemberField.parse(fields));
+    }
+
+    @GetMapping(value = "/v1/members/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        memberExportService.exportNdjson(condition, response.getOutputStream());
+    }
+
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request,
+                                              HttpServletResponse response) {
+        if (request.checkNotModified(etag(condition, pageable, request, response))) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
+    @GetMapping(value = {"/v2/members", "/v3/members"}, params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsPage(MemberSearchCondition condition, Pageable pageable,
+                                                          @RequestParam String fields) {
+        return memberRepository.searchPageFields(condition, MemberField.parse(fields), pageable);
+    }
+
     @GetMapping("/v3/members")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    @GetMapping("/v4/members")
+    public CursorResult<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        return memberRepository.searchAfter(condition, cursor, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    @PostMapping(value = "/members/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public MemberImportResult importMembers(HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return memberImportService.importMembers(new MemberImportReader(reader, contentType, objectMapper));
+        }
+    }
+
+    // JSON 과 columns 중 어느 표현으로 응답할지에 따라 ETag 가 달라지므로 캐시가 Accept 별로 따로 두게 한다 (304 에도)
+    private String etag(MemberSearchCondition condition, Pageable pageable, WebRequest request,
+                        HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return memberDataVersion.etag(condition, pageable, representation(request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    // 메시지 컨버터 순서와 같게 고른다. JSON 컨버터가 앞에 있어서 */* 나 Accept 없음은 JSON 이다
+    static MediaType representation(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            if (type.isCompatibleWith(MemberColumnsConverter.MEDIA_TYPE)) {
+                return MemberColumnsConverter.MEDIA_TYPE;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // 잘못된 입력으로 직접 던진 예외만 400 으로 바꾼다. 그 밖의 IllegalArgumentException 은 서버 오류다
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidRequestException e) {
+        return e.getMessage();
+    }
 }
@@ -0,0 +1,32 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.service.TeamService;
+import study.querydsl.service.TeamStatsService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamService teamService;
+    private final TeamStatsService teamStatsService;
+
+    @GetMapping("/teams")
+    public Page<TeamMembersDto> teams(Pageable pageable) {
+        return teamService.findTeamsWithMembers(pageable);
+    }
+
+    // 팀별 회원 수/평균/최소/최대 나이. member 를 group by 하지 않고 team_stats 요약을 읽는다
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsService.findAll();
+    }
+}
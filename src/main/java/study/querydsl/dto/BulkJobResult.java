@@ -0,0 +1,36 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class BulkJobResult {
+
+    private final String jobId;
+    private final String operation;
+    private final Long resumedAfterId; // 이전 실행에서 이어서 했으면 그때 마지막 id
+    private long rows; // 이번 실행에서 고친 row 수
+    private int chunks;
+    private long totalRows; // 이전 실행 포함
+    private boolean completed; // false 면 중간에 멈췄다. 같은 jobId 로 다시 부르면 이어서 한다
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    public BulkJobResult(String jobId, String operation, Long resumedAfterId) {
+        this.jobId = jobId;
+        this.operation = operation;
+        this.resumedAfterId = resumedAfterId;
+    }
+
+    public void addChunk(long rows, long totalRows) {
+        this.rows += rows;
+        this.chunks++;
+        this.totalRows = totalRows;
+    }
+
+    public void finish(boolean completed, long totalRows, long elapsedMillis) {
+        this.completed = completed;
+        this.totalRows = totalRows;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+    }
+}
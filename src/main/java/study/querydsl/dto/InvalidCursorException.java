@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+/**
+ * keyset 페이징의 cursor 나 size 가 잘못되었다.
+ */
+public class InvalidCursorException extends InvalidRequestException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
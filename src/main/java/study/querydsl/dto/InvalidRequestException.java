@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+/**
+ * 클라이언트가 보낸 값이 잘못되었다. 컨트롤러가 400 으로 응답하고 메시지를 본문으로 내보내므로
+ * 메시지에 입력값을 그대로 넣지 않는다.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이징용 커서. 클라이언트에게는 마지막으로 읽은 member.id 를 감싼 불투명한 문자열로만 노출한다.
+ */
+public final class MemberCursor {
+
+    private static final String PREFIX = "m:";
+
+    private MemberCursor() {
+    }
+
+    public static String encode(Long lastMemberId) {
+        String raw = PREFIX + lastMemberId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 마지막으로 읽은 member.id, 커서가 없으면(첫 페이지) null
+     * @throws InvalidCursorException 이 클래스가 만든 커서가 아니면
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("invalid cursor", e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new InvalidCursorException("invalid cursor");
+        }
+        try {
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("invalid cursor", e);
+        }
+    }
+}
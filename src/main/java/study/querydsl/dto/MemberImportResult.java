@@ -0,0 +1,48 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class MemberImportResult {
+
+    private long rows;
+    private int createdTeams;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    public void addChunk(Chunk chunk) {
+        chunks.add(chunk);
+        rows += chunk.getRows();
+        createdTeams += chunk.getCreatedTeams();
+    }
+
+    public void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond(rows, elapsedMillis);
+    }
+
+    @Getter
+    public static class Chunk {
+        private final int index;
+        private final int rows;
+        private final int createdTeams;
+        private final long elapsedMillis;
+        private final double rowsPerSecond;
+
+        public Chunk(int index, int rows, int createdTeams, long elapsedMillis) {
+            this.index = index;
+            this.rows = rows;
+            this.createdTeams = createdTeams;
+            this.elapsedMillis = elapsedMillis;
+            this.rowsPerSecond = rowsPerSecond(rows, elapsedMillis);
+        }
+    }
+
+    private static double rowsPerSecond(long rows, long elapsedMillis) {
+        return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+    }
+}
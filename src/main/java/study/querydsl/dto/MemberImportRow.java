@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportRow {
+    private String username;
+    private Integer age; // 빠지면 잘못된 줄
+    private String teamName; // 비어 있으면 팀 없이 등록
+}
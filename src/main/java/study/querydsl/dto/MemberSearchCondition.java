@@ -2,11 +2,30 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     //회원명, 팀명, 나이(ageGoe, ageLoe)
     private String username;
+    private String usernamePrefix; // username 이 이 값으로 시작하는 회원
+    private boolean ignoreCase; // username, usernamePrefix 를 대소문자 구분 없이 비교
     private String teamName;
     private Integer ageGoe; // null일 수도 있어서 Integer를 사용
     private Integer ageLoe;
+
+    /**
+     * 캐시 키용 사본. 검색에서 무시되는 빈 문자열은 null 로 맞춰서 같은 쿼리가 같은 키를 갖게 한다.
+     */
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setUsernamePrefix(hasText(usernamePrefix) ? usernamePrefix : null);
+        // username 조건이 없으면 의미가 없으므로 키가 갈라지지 않게 끈다
+        normalized.setIgnoreCase(ignoreCase && (normalized.getUsername() != null || normalized.getUsernamePrefix() != null));
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
@@ -0,0 +1,53 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * chunk 단위 벌크 작업의 진행 상황. chunk 를 고친 트랜잭션에서 같이 커밋되므로 마지막으로 커밋된 chunk 를 가리킨다.
+ */
+@Entity
+@Table(name = "bulk_job_checkpoint")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkJobCheckpoint {
+
+    @Id
+    @Column(name = "job_id")
+    private String jobId;
+    private String operation;
+    private String fingerprint; // 조건과 변경 내용의 SHA-256. 같은 jobId 로 다른 작업을 이어 하지 못하게 한다
+    private long lastId; // 여기까지(포함) 처리했다
+    private long rows;
+    private int chunks;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobId, String operation, String fingerprint) {
+        this.jobId = jobId;
+        this.operation = operation;
+        this.fingerprint = fingerprint;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(long lastId, long rows) {
+        this.lastId = lastId;
+        this.rows += rows;
+        this.chunks++;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -3,8 +3,15 @@ package study.querydsl.entity;
 import lombok.*;
 
 import javax.persistence.*;
+import java.util.Locale;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_username_lower", columnList = "username_lower"), // 대소문자 무시 검색용
+        // teamName 으로 찾은 team_id + 나이 범위를 한 번에 탄다. team_id 단독 조회(FK)도 이 인덱스로 된다
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -12,10 +19,17 @@ import javax.persistence.*;
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 500)
     @Column(name = "member_id")
     private Long id;
     private String username;
+
+    // username 을 소문자로 맞춘 값. username 을 바꿀 때 같이 바뀐다 (bulk update 는 직접 같이 set 해야 한다)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_lower")
+    private String usernameLower;
+
     private int age;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,16 +38,16 @@ public class Member {
 
     // 실무에서는 필요한 생성자만 만들어라
     public Member(String username) {
-        this.username = username;
+        setUsername(username);
     }
 
     public Member(String username, int age) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
     }
 
     public Member(String username, int age, Team team) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
 
         if (team != null) {
@@ -41,6 +55,15 @@ public class Member {
         }
     }
 
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameLower = lowerCase(username);
+    }
+
+    public static String lowerCase(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
     private void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.*;
+
+/**
+ * 검색용 member + team.name 비정규화 테이블. member/team 이 바뀔 때 같은 트랜잭션에서 갱신된다
+ * (MemberSearchViewListener). 조회 전용이라 JPA 로는 쓰지 않는다.
+ * 갱신은 flush 때 되므로, 이 엔티티를 조회하기 전에 member/team 의 대기 중인 변경을 auto flush 하게 한다.
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Table(name = "member_search_view", indexes = {
+        @Index(name = "idx_msv_username", columnList = "username"),
+        @Index(name = "idx_msv_username_lower", columnList = "username_lower"),
+        // teamName 조건 + 나이 범위를 조인 없이 한 인덱스로 탄다
+        @Index(name = "idx_msv_team_name_age", columnList = "team_name, age"),
+        @Index(name = "idx_msv_team_id", columnList = "team_id") // 팀 이름 변경용
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberSearchView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    @Column(name = "username_lower")
+    private String usernameLower;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+}
@@ -0,0 +1,54 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Objects;
+
+/**
+ * 팀별 회원 수/나이 요약. member/team 이 바뀔 때 같은 트랜잭션에서 증분으로 갱신된다 (TeamStatsListener).
+ * 평균은 ageSum / memberCount 로 구한다. 갱신은 flush 때 되므로 조회 전에 member/team 의 변경을 auto flush 하게 한다.
+ */
+@Entity
+@Table(name = "team_stats")
+@Synchronize({"member", "team"})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public TeamStats(Long teamId, String teamName, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        update(teamName, memberCount, ageSum, minAge, maxAge);
+    }
+
+    /**
+     * @return 값이 바뀌었으면 true
+     */
+    public boolean update(String teamName, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        boolean changed = !Objects.equals(this.teamName, teamName) || this.memberCount != memberCount
+                || this.ageSum != ageSum || !Objects.equals(this.minAge, minAge) || !Objects.equals(this.maxAge, maxAge);
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        return changed;
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.event;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 트랜잭션이 끝날 때(커밋이든 롤백이든) 한 번만 실행할 작업을 등록한다.
+ * 한 트랜잭션에서 변경 이벤트가 수천 번 발생해도 key 당 synchronization 은 하나만 쌓인다.
+ */
+public final class AfterCompletion {
+
+    private AfterCompletion() {
+    }
+
+    /**
+     * @return 트랜잭션이 없어서 등록하지 못했으면 false
+     */
+    public static boolean runOnce(Object key, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.hasResource(key)) {
+            return true;
+        }
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                action.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 현재 트랜잭션에 key 로 이미 등록했는지
+     */
+    public static boolean isRegistered(Object key) {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(key);
+    }
+}
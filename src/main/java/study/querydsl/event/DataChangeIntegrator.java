@@ -0,0 +1,50 @@
+package study.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+@RequiredArgsConstructor
+public class DataChangeIntegrator implements Integrator {
+
+    private final DataChangeListener listener;
+    private final TeamStatsListener teamStatsListener;
+    private final MemberSearchViewListener memberSearchViewListener;
+    private final boolean maintainSearchView;
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, listener);
+        registry.appendListeners(EventType.PRE_UPDATE, listener);
+        registry.appendListeners(EventType.PRE_DELETE, listener);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+
+        registry.appendListeners(EventType.POST_INSERT, teamStatsListener);
+        registry.appendListeners(EventType.POST_UPDATE, teamStatsListener);
+        registry.appendListeners(EventType.POST_DELETE, teamStatsListener);
+        // 기본 flush 리스너가 DML 을 다 보낸 뒤에 요약을 갱신한다
+        registry.appendListeners(EventType.FLUSH, teamStatsListener);
+        registry.appendListeners(EventType.AUTO_FLUSH, teamStatsListener);
+
+        if (!maintainSearchView) {
+            return;
+        }
+        registry.appendListeners(EventType.POST_INSERT, memberSearchViewListener);
+        registry.appendListeners(EventType.POST_UPDATE, memberSearchViewListener);
+        registry.appendListeners(EventType.POST_DELETE, memberSearchViewListener);
+        registry.appendListeners(EventType.FLUSH, memberSearchViewListener);
+        registry.appendListeners(EventType.AUTO_FLUSH, memberSearchViewListener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 하이버네이트 이벤트와 SQL 을 보고 {@link MemberDataChangedEvent} 를 발행한다.
+ * <p>
+ * 엔티티 변경은 Post* 이벤트로 잡고, 영속성 컨텍스트를 거치지 않는 벌크 update/delete 는
+ * StatementInspector 로 잡는다. 엔티티 DML 도 inspector 를 지나가므로 Pre* 이벤트에서 플래그를 세워
+ * 이미 엔티티 이벤트로 처리된 statement 는 벌크로 다시 보고하지 않는다.
+ * 바뀐 row 를 아는 벌크 연산은 {@link #withoutBulkEvent(Supplier)} 안에서 실행하고 팀 단위 이벤트를 직접 발행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataChangeListener implements StatementInspector,
+        PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Pattern DML = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)?(?:insert\\s+into|update|delete\\s+from)\\s+(member|team)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final ThreadLocal<Boolean> entityStatementPending = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> bulkEventSuppressed = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = DML.matcher(sql);
+        if (!matcher.find()) {
+            return sql;
+        }
+        if (entityStatementPending.get()) {
+            entityStatementPending.set(false);
+            return sql;
+        }
+        if (bulkEventSuppressed.get()) {
+            return sql;
+        }
+        MemberDataChangedEvent.Table table =
+                MemberDataChangedEvent.Table.valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+        publisher.publishEvent(MemberDataChangedEvent.bulk(table));
+        return sql;
+    }
+
+    /**
+     * action 이 실행하는 벌크 statement 는 벌크 이벤트로 보고하지 않는다. 호출하는 쪽이 바뀐 row 의 요약/view 를 직접 고치고
+     * 영향받은 팀으로 {@link MemberDataChangedEvent#entity} 를 발행해야 한다.
+     */
+    public <T> T withoutBulkEvent(Supplier<T> action) {
+        boolean previous = bulkEventSuppressed.get();
+        bulkEventSuppressed.set(true);
+        try {
+            return action.get();
+        } finally {
+            bulkEventSuppressed.set(previous);
+        }
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        markEntityStatement(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        markEntityStatement(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        markEntityStatement(event.getEntity());
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityStatementPending.set(false);
+        publish(event.getEntity(), null, event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityStatementPending.set(false);
+        publish(event.getEntity(), event.getOldState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityStatementPending.set(false);
+        publish(event.getEntity(), null, event.getPersister());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void markEntityStatement(Object entity) {
+        if (entity instanceof Member || entity instanceof Team) {
+            entityStatementPending.set(true);
+        }
+    }
+
+    private void publish(Object entity, Object[] oldState, EntityPersister persister) {
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Set<Long> teamIds = new HashSet<>();
+            addTeamId(teamIds, member.getTeam());
+            if (oldState != null) {
+                int teamIndex = persister.getEntityMetamodel().getPropertyIndex("team");
+                addTeamId(teamIds, (Team) oldState[teamIndex]);
+            }
+            publisher.publishEvent(MemberDataChangedEvent.entity(MemberDataChangedEvent.Table.MEMBER, teamIds));
+        } else if (entity instanceof Team) {
+            Set<Long> teamIds = new HashSet<>();
+            addTeamId(teamIds, (Team) entity);
+            publisher.publishEvent(MemberDataChangedEvent.entity(MemberDataChangedEvent.Table.TEAM, teamIds));
+        }
+    }
+
+    private void addTeamId(Set<Long> teamIds, Team team) {
+        if (team != null && team.getId() != null) {
+            teamIds.add(team.getId());
+        }
+    }
+}
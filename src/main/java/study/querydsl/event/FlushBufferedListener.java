@@ -0,0 +1,92 @@
+package study.querydsl.event;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Post* 이벤트에서 모은 변경을 flush 가 끝난 뒤 같은 커넥션으로 한 번에 적용하는 리스너의 공통 부분.
+ * <p>
+ * 기본 flush 리스너 뒤에 등록되므로 적용하는 시점에는 이번 flush 의 DML(JDBC 배치 포함)이 모두 나가 있다.
+ * 같은 트랜잭션이라 커밋/롤백을 같이 따르고, flush 되지 않고 트랜잭션이 끝나면 모은 변경은 버린다.
+ */
+abstract class FlushBufferedListener<B extends FlushBufferedListener.Buffer> implements
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    interface Buffer {
+
+        boolean isEmpty();
+
+        void applyTo(Connection connection) throws SQLException;
+    }
+
+    private final ThreadLocal<Pending<B>> pending = new ThreadLocal<>();
+
+    protected abstract B newBuffer();
+
+    protected B buffer(EventSource session) {
+        Pending<B> current = pending.get();
+        if (current == null || current.session != session) {
+            Pending<B> created = new Pending<>(session, newBuffer());
+            pending.set(created);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                if (pending.get() == created) {
+                    pending.remove();
+                }
+            });
+            current = created;
+        }
+        return current.buffer;
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void apply(EventSource session) {
+        Pending<B> current = pending.get();
+        if (current == null || current.session != session) {
+            return;
+        }
+        pending.remove();
+        if (!current.buffer.isEmpty()) {
+            session.doWork(current.buffer::applyTo);
+        }
+    }
+
+    static int update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static final class Pending<B> {
+
+        final EventSource session;
+        final B buffer;
+
+        Pending(EventSource session, B buffer) {
+            this.session = session;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * member / team 테이블 데이터가 바뀌었음을 알리는 이벤트.
+ * 엔티티 단위 변경(persist, dirty checking, remove)과 Querydsl 벌크 update/delete 모두 발행된다.
+ */
+@Getter
+@ToString
+public class MemberDataChangedEvent {
+
+    public enum Table { MEMBER, TEAM }
+
+    private final Table table;
+    private final boolean bulk; // 벌크 연산이면 어떤 row 가 바뀌었는지 알 수 없다
+    private final Set<Long> teamIds; // 영향을 받은 팀, bulk 이면 비어 있음
+
+    private MemberDataChangedEvent(Table table, boolean bulk, Set<Long> teamIds) {
+        this.table = table;
+        this.bulk = bulk;
+        this.teamIds = teamIds;
+    }
+
+    public static MemberDataChangedEvent entity(Table table, Set<Long> teamIds) {
+        return new MemberDataChangedEvent(table, false, Collections.unmodifiableSet(teamIds));
+    }
+
+    public static MemberDataChangedEvent bulk(Table table) {
+        return new MemberDataChangedEvent(table, true, Collections.emptySet());
+    }
+}
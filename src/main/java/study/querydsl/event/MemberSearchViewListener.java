@@ -0,0 +1,85 @@
+package study.querydsl.event;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * member / team 엔티티 변경을 member_search_view 에 같은 트랜잭션으로 반영한다.
+ * <p>
+ * 바뀐 회원은 flush 가 끝난 뒤 member 와 team 을 조인해서 다시 넣는다. 팀 이름이 바뀌면 그 팀 회원 row 를
+ * team_id 인덱스로 한 번에 고친다. 벌크 update/delete 는 MemberSearchViewStatus 가 맡는다.
+ * member.search-view 의 enabled 나 maintain 이 켜져 있을 때만 등록된다 (DataChangeIntegrator).
+ */
+@Component
+public class MemberSearchViewListener extends FlushBufferedListener<MemberSearchViewListener.Changes> {
+
+    @Override
+    protected Changes newBuffer() {
+        return new Changes();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            buffer(event.getSession()).refreshed.add(((Member) event.getEntity()).getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            buffer(event.getSession()).refreshed.add(((Member) entity).getId());
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            Object[] oldState = event.getOldState();
+            int nameIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("name");
+            if (oldState == null || !Objects.equals(oldState[nameIndex], team.getName())) {
+                buffer(event.getSession()).renamed.put(team.getId(), team.getName());
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Changes changes = buffer(event.getSession());
+            Long memberId = ((Member) event.getEntity()).getId();
+            changes.refreshed.remove(memberId);
+            changes.deleted.add(memberId);
+        }
+    }
+
+    static final class Changes implements Buffer {
+
+        final Set<Long> refreshed = new LinkedHashSet<>();
+        final Set<Long> deleted = new LinkedHashSet<>();
+        final Map<Long, String> renamed = new HashMap<>();
+
+        @Override
+        public boolean isEmpty() {
+            return refreshed.isEmpty() && deleted.isEmpty() && renamed.isEmpty();
+        }
+
+        @Override
+        public void applyTo(Connection connection) throws SQLException {
+            for (Map.Entry<Long, String> entry : renamed.entrySet()) {
+                MemberSearchViewWriter.renameTeam(connection, entry.getKey(), entry.getValue());
+            }
+            MemberSearchViewWriter.delete(connection, deleted);
+            MemberSearchViewWriter.refresh(connection, refreshed);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.event;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * member_search_view 를 member/team 에서 다시 채우는 SQL. 리스너와 정합성 검사가 같이 쓴다.
+ * 회원 한 명씩 delete + insert ... select 를 JDBC 배치로 보낸다.
+ */
+public final class MemberSearchViewWriter {
+
+    private static final String COLUMNS = "member_id, username, username_lower, age, team_id, team_name";
+    private static final String SELECT = "select m.member_id, m.username, m.username_lower, m.age, m.team_id, t.name"
+            + " from member m left join team t on t.id = m.team_id";
+
+    private static final String DELETE = "delete from member_search_view where member_id = ?";
+    private static final String INSERT = "insert into member_search_view (" + COLUMNS + ") " + SELECT
+            + " where m.member_id = ?";
+    private static final String RENAME_TEAM = "update member_search_view set team_name = ? where team_id = ?";
+    private static final String TEAM_NAME = "(select t.name from team t where t.id = v.team_id)";
+    private static final String RESYNC_TEAM_NAME = "update member_search_view v set team_name = " + TEAM_NAME
+            + " where v.team_id = ? and " + distinct("v.team_name", TEAM_NAME);
+    private static final String COUNT = "select count(*) from member_search_view";
+    private static final String BACKFILL = "insert into member_search_view (" + COLUMNS + ") " + SELECT;
+    private static final String DELETE_ORPHANS = "delete from member_search_view v"
+            + " where not exists (select 1 from member m where m.member_id = v.member_id)";
+    private static final String FIND_STALE = "select m.member_id from member m"
+            + " left join team t on t.id = m.team_id"
+            + " left join member_search_view v on v.member_id = m.member_id"
+            + " where v.member_id is null"
+            + " or v.age <> m.age"
+            + " or " + distinct("v.username", "m.username")
+            + " or " + distinct("v.username_lower", "m.username_lower")
+            + " or " + distinct("v.team_id", "m.team_id")
+            + " or " + distinct("v.team_name", "t.name");
+
+    private static final int BATCH_SIZE = 500;
+
+    private MemberSearchViewWriter() {
+    }
+
+    // null 도 값으로 비교한다. is distinct from 은 H2/PostgreSQL 밖에서는 안 되는 곳이 있어서 풀어서 쓴다
+    private static String distinct(String a, String b) {
+        return "(" + a + " <> " + b
+                + " or " + a + " is null and " + b + " is not null"
+                + " or " + a + " is not null and " + b + " is null)";
+    }
+
+    public static void refresh(Connection connection, Collection<Long> memberIds) throws SQLException {
+        batch(connection, DELETE, memberIds);
+        batch(connection, INSERT, memberIds);
+    }
+
+    public static void delete(Connection connection, Collection<Long> memberIds) throws SQLException {
+        batch(connection, DELETE, memberIds);
+    }
+
+    public static void renameTeam(Connection connection, Long teamId, String teamName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RENAME_TEAM)) {
+            statement.setString(1, teamName);
+            statement.setLong(2, teamId);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 팀 이름 변경과 동시에 커밋된 회원 row 는 예전 이름을 가질 수 있어서, 변경이 커밋된 뒤 그 팀 row 를 team 에 다시 맞춘다.
+     */
+    public static void resyncTeamNames(Connection connection, Collection<Long> teamIds) throws SQLException {
+        batch(connection, RESYNC_TEAM_NAME, teamIds);
+    }
+
+    /**
+     * member/team 과 다른 row 를 찾아 고친다. view 가 비어 있으면 insert ... select 한 번으로 채운다.
+     *
+     * @return 고친 row 수
+     */
+    public static int repair(Connection connection) throws SQLException {
+        try (PreparedStatement count = connection.prepareStatement(COUNT);
+             ResultSet rs = count.executeQuery()) {
+            rs.next();
+            if (rs.getLong(1) == 0) {
+                try (PreparedStatement backfill = connection.prepareStatement(BACKFILL)) {
+                    return backfill.executeUpdate();
+                }
+            }
+        }
+
+        int fixed;
+        try (PreparedStatement orphans = connection.prepareStatement(DELETE_ORPHANS)) {
+            fixed = orphans.executeUpdate();
+        }
+        List<Long> stale = new ArrayList<>();
+        try (PreparedStatement find = connection.prepareStatement(FIND_STALE);
+             ResultSet rs = find.executeQuery()) {
+            while (rs.next()) {
+                stale.add(rs.getLong(1));
+            }
+        }
+        refresh(connection, stale);
+        return fixed + stale.size();
+    }
+
+    private static void batch(Connection connection, String sql, Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (Long id : ids) {
+                statement.setLong(1, id);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package study.querydsl.event;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * member / team 엔티티 변경을 team_stats 요약 테이블에 반영한다.
+ * <p>
+ * Post* 이벤트에서 팀별 변화량(회원 수, 나이 합, 추가/삭제된 나이의 최소/최대)을 모아 두었다가 flush 가 끝나면
+ * 팀당 update 한 번씩 적용한다. 회원 수와 상관없이 바뀐 팀 수만큼만 SQL 이 나간다.
+ * 최소/최대 나이는 빼기가 안 되므로 지워진 나이가 현재 최소/최대일 때만 idx_member_team_age 로 다시 구한다.
+ * <p>
+ * 엔티티 이벤트가 없는 벌크 update/delete 와 StatelessSession 은 바뀐 row 를 아는 쪽이 {@link #recompute} / {@link #addMembers} 로
+ * 직접 고치고, 그렇지 못한 벌크 연산은 TeamStatsReconciler 가 맞춘다.
+ * <p>
+ * 요약 row 를 다시 만드는 delete + insert 는 같은 팀을 동시에 다시 만드는 트랜잭션과 키가 겹칠 수 있다. 그때는 savepoint 로
+ * 그 insert 만 되돌리고 (회원 변경은 그대로 커밋된다) 트랜잭션이 끝난 뒤 TeamStatsReconciler 에 맡긴다.
+ */
+@Component
+public class TeamStatsListener extends FlushBufferedListener<TeamStatsListener.Changes> {
+
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+    private static final String RECOMPUTE =
+            "insert into team_stats (team_id, team_name, member_count, age_sum, min_age, max_age)"
+                    + " select t.id, t.name, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+                    + " from team t left join member m on m.team_id = t.id where t.id = ? group by t.id, t.name";
+    private static final String RENAME = "update team_stats set team_name = ? where team_id = ?";
+    private static final String ADD_COUNT =
+            "update team_stats set member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?";
+    // H2/PostgreSQL 의 least/greatest 는 null 을 무시하고, MySQL 은 null 을 돌려주므로 coalesce 로 맞춘다
+    private static final String ADD_AGES =
+            "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?,"
+                    + " min_age = coalesce(least(min_age, ?), ?), max_age = coalesce(greatest(max_age, ?), ?)"
+                    + " where team_id = ?";
+    private static final String REFRESH_MIN_MAX = "update team_stats set"
+            + " min_age = (select min(m.age) from member m where m.team_id = ?),"
+            + " max_age = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ? and (min_age >= ? or max_age <= ?)";
+
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+
+    @Override
+    protected Changes newBuffer() {
+        return new Changes(this::requestReconcile);
+    }
+
+    public boolean takeReconcileRequest() {
+        return reconcileRequested.getAndSet(false);
+    }
+
+    /**
+     * 벌크 연산처럼 엔티티 이벤트 없이 바뀐 팀의 요약 row 를 member 에서 다시 만든다. 현재 트랜잭션의 커넥션으로 부른다.
+     */
+    public void recompute(Connection connection, Collection<Long> teamIds) throws SQLException {
+        Changes changes = newBuffer();
+        changes.recompute.addAll(teamIds);
+        changes.applyTo(connection);
+    }
+
+    /**
+     * StatelessSession 으로 넣은 회원처럼 엔티티 이벤트 없이 추가된 회원을 요약 row 에 더한다. 현재 트랜잭션의 커넥션으로 부른다.
+     */
+    public void addMembers(Connection connection, Collection<Member> members) throws SQLException {
+        Changes changes = newBuffer();
+        for (Member member : members) {
+            Long teamId = teamId(member.getTeam());
+            if (teamId != null) {
+                changes.delta(teamId).add(member.getAge());
+            }
+        }
+        changes.applyTo(connection);
+    }
+
+    // 충돌한 상대가 커밋한 뒤에 맞춰야 이쪽 변경도 들어가므로 트랜잭션이 끝나고 요청한다
+    private void requestReconcile() {
+        if (!AfterCompletion.runOnce(reconcileRequested, () -> reconcileRequested.set(true))) {
+            reconcileRequested.set(true);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long teamId = teamId(member.getTeam());
+            if (teamId != null) {
+                buffer(event.getSession()).delta(teamId).add(member.getAge());
+            }
+        } else if (entity instanceof Team) {
+            buffer(event.getSession()).recompute.add(((Team) entity).getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        Object[] oldState = event.getOldState();
+        EntityMetamodel metamodel = event.getPersister().getEntityMetamodel();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long teamId = teamId(member.getTeam());
+            if (oldState == null) {
+                // 이전 값을 모르면(detached update) 지금 팀만 다시 세고, 이전 팀은 reconcile 에 맡긴다
+                if (teamId != null) {
+                    buffer(event.getSession()).recompute.add(teamId);
+                }
+                return;
+            }
+            Long oldTeamId = teamId((Team) oldState[metamodel.getPropertyIndex("team")]);
+            int oldAge = (Integer) oldState[metamodel.getPropertyIndex("age")];
+            if (Objects.equals(oldTeamId, teamId) && oldAge == member.getAge()) {
+                return;
+            }
+            Changes changes = buffer(event.getSession());
+            if (oldTeamId != null) {
+                changes.delta(oldTeamId).remove(oldAge);
+            }
+            if (teamId != null) {
+                changes.delta(teamId).add(member.getAge());
+            }
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            if (oldState == null || !Objects.equals(oldState[metamodel.getPropertyIndex("name")], team.getName())) {
+                buffer(event.getSession()).renamed.put(team.getId(), team.getName());
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long teamId = teamId(member.getTeam());
+            if (teamId != null) {
+                buffer(event.getSession()).delta(teamId).remove(member.getAge());
+            }
+        } else if (entity instanceof Team) {
+            buffer(event.getSession()).deleted.add(((Team) entity).getId());
+        }
+    }
+
+    private static Long teamId(Team team) {
+        return team == null ? null : team.getId();
+    }
+
+    static final class Changes implements Buffer {
+
+        final Map<Long, Delta> deltas = new HashMap<>();
+        final Set<Long> recompute = new HashSet<>();
+        final Map<Long, String> renamed = new HashMap<>();
+        final Set<Long> deleted = new HashSet<>();
+        private final Runnable onConflict;
+
+        Changes(Runnable onConflict) {
+            this.onConflict = onConflict;
+        }
+
+        Delta delta(Long teamId) {
+            return deltas.computeIfAbsent(teamId, id -> new Delta());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return deltas.isEmpty() && recompute.isEmpty() && renamed.isEmpty() && deleted.isEmpty();
+        }
+
+        @Override
+        public void applyTo(Connection connection) throws SQLException {
+            for (Long teamId : deleted) {
+                update(connection, DELETE, teamId);
+                recompute.remove(teamId);
+                renamed.remove(teamId);
+                deltas.remove(teamId);
+            }
+            // 새 팀이거나 이전 값을 모르는 팀은 member 에서 다시 센다. 이번 flush 의 변경도 이미 들어 있다
+            for (Long teamId : recompute) {
+                recompute(connection, teamId);
+                renamed.remove(teamId);
+                deltas.remove(teamId);
+            }
+            for (Map.Entry<Long, String> entry : renamed.entrySet()) {
+                update(connection, RENAME, entry.getValue(), entry.getKey());
+            }
+            for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+                Long teamId = entry.getKey();
+                Delta delta = entry.getValue();
+                int updated = delta.addedMin == null
+                        ? update(connection, ADD_COUNT, delta.count, delta.ageSum, teamId)
+                        : update(connection, ADD_AGES, delta.count, delta.ageSum,
+                        delta.addedMin, delta.addedMin, delta.addedMax, delta.addedMax, teamId);
+                if (updated == 0) {
+                    // 요약 row 가 없으면(기능 도입 전 팀 등) 새로 만든다
+                    recompute(connection, teamId);
+                } else if (delta.removedMin != null) {
+                    update(connection, REFRESH_MIN_MAX, teamId, teamId, teamId, delta.removedMin, delta.removedMax);
+                }
+            }
+        }
+
+        private void recompute(Connection connection, Long teamId) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                update(connection, DELETE, teamId);
+                update(connection, RECOMPUTE, teamId);
+            } catch (SQLException e) {
+                // 23xxx: 무결성 제약 위반. 다른 트랜잭션이 같은 팀 row 를 먼저 넣었다
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                onConflict.run();
+                return;
+            }
+            connection.releaseSavepoint(savepoint);
+        }
+    }
+
+    private static final class Delta {
+
+        long count;
+        long ageSum;
+        Integer addedMin;
+        Integer addedMax;
+        Integer removedMin;
+        Integer removedMax;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
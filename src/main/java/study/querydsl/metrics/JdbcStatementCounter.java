@@ -0,0 +1,38 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 가 감싼 DataSource 에서 실행된 JDBC statement 수와 시간을 스레드별로 센다.
+ * 어떤 구간의 statement 수는 구간 시작과 끝의 {@link #count()} 차이로 구한다.
+ * {@link StatementCollector} 가 시작된 스레드라면 SQL 별 통계도 넘겨준다.
+ */
+@Component
+public class JdbcStatementCounter extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        long[] counters = COUNTERS.get();
+        counters[0]++;
+        counters[1] += timeElapsedNanos;
+
+        StatementCollector collector = StatementCollector.current();
+        if (collector != null) {
+            collector.record(statementInformation.getSql(), statementInformation.getSqlWithValues(), timeElapsedNanos);
+        }
+    }
+
+    public static long count() {
+        return COUNTERS.get()[0];
+    }
+
+    public static long elapsedNanos() {
+        return COUNTERS.get()[1];
+    }
+}
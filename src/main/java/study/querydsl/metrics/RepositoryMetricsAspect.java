@@ -0,0 +1,99 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.CursorResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 조회 경로(리포지토리, 컨트롤러)의 메서드 x 검색 조건 모양별 지표.
+ * <ul>
+ *     <li>member.method: 지연 시간 (p50/p95/p99)</li>
+ *     <li>member.method.rows: 반환한 row 수</li>
+ *     <li>member.method.statements: 실행한 JDBC statement 수 (같은 스레드 기준, 비동기 count 는 제외)</li>
+ * </ul>
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    @Around("execution(public * study.querydsl.repository.MemberRepositoryImpl.*(..))" +
+            " || execution(public * study.querydsl.repository.MemberJpaRepository.*(..))" +
+            " || execution(* study.querydsl.repository.MemberRepository.findByUsername(..))" +
+            " || (within(study.querydsl.controller.MemberController)" +
+            "     && (@annotation(org.springframework.web.bind.annotation.GetMapping)" +
+            "         || @annotation(org.springframework.web.bind.annotation.PostMapping)))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "class", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getSignature().getName(),
+                "shape", shape(joinPoint.getArgs()));
+
+        long statementsBefore = JdbcStatementCounter.count();
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            recordRows(tags, result);
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder("member.method")
+                    .tags(tags.and("exception", exception))
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("member.method.statements")
+                    .tags(tags)
+                    .register(registry)
+                    .record(JdbcStatementCounter.count() - statementsBefore);
+        }
+    }
+
+    private void recordRows(Tags tags, Object result) {
+        long rows;
+        if (result instanceof Collection) {
+            rows = ((Collection<?>) result).size();
+        } else if (result instanceof Slice) {
+            rows = ((Slice<?>) result).getNumberOfElements();
+        } else if (result instanceof CursorResult) {
+            rows = ((CursorResult<?>) result).getContent().size();
+        } else if (result instanceof Optional) {
+            rows = ((Optional<?>) result).isPresent() ? 1 : 0;
+        } else {
+            return; // count, 스트림 등은 row 수를 알 수 없다
+        }
+        DistributionSummary.builder("member.method.rows")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(rows);
+    }
+
+    private String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return MemberSearchShape.of((MemberSearchCondition) arg).describe();
+            }
+        }
+        return "n/a";
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 한 요청(스레드) 동안 Hibernate 가 한 일을 센다. {@link RequestStatisticsFactory} 가 채운다.
+ * <p>
+ * 비동기 count 처럼 다른 스레드에서 실행된 쿼리는 잡히지 않는다.
+ */
+public class RequestStatistics {
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Kind {
+        ENTITY_LOAD("entityLoads"),
+        ENTITY_FETCH("entityFetches"), // 지연 로딩 프록시 초기화 등 추가 조회
+        COLLECTION_LOAD("collectionLoads"),
+        COLLECTION_FETCH("collectionFetches"),
+        QUERY("queries"),
+        FLUSH("flushes"),
+        SECOND_LEVEL_CACHE_HIT("secondLevelCacheHits"),
+        SECOND_LEVEL_CACHE_MISS("secondLevelCacheMisses"),
+        QUERY_CACHE_HIT("queryCacheHits"),
+        QUERY_CACHE_MISS("queryCacheMisses"),
+        QUERY_PLAN_CACHE_HIT("queryPlanCacheHits"),
+        QUERY_PLAN_CACHE_MISS("queryPlanCacheMisses");
+
+        private final String key;
+    }
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private final long[] counts = new long[Kind.values().length];
+
+    public static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static RequestStatistics stop() {
+        RequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics == null ? new RequestStatistics() : statistics;
+    }
+
+    static void increment(Kind kind) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.counts[kind.ordinal()]++;
+        }
+    }
+
+    public long get(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    void add(RequestStatistics other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Kind kind : Kind.values()) {
+            map.put(kind.getKey(), get(kind));
+        }
+        return map;
+    }
+}
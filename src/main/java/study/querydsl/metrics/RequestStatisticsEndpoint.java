@@ -0,0 +1,31 @@
+package study.querydsl.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/hibernaterequests - endpoint 별, 창 별 Hibernate 통계.
+ * 예) GET /v3/members 의 entityLoads, flushes 가 0 이 아니면 projection 이 엔티티를 만들고 있다는 뜻이다.
+ */
+@Component
+@Endpoint(id = "hibernaterequests")
+@RequiredArgsConstructor
+public class RequestStatisticsEndpoint {
+
+    private final RequestStatisticsWindows windows;
+
+    @ReadOperation
+    public Map<String, Map<String, RequestStatisticsWindows.Snapshot>> statistics() {
+        return windows.snapshot();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        windows.clear();
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import study.querydsl.metrics.RequestStatistics.Kind;
+
+/**
+ * 기본 {@link StatisticsImpl} 에 요청 단위 집계({@link RequestStatistics})를 얹는다.
+ * <p>
+ * Hibernate 는 generate_statistics 가 켜져 있을 때만 이 콜백들을 부른다.
+ */
+public class RequestStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new RequestAwareStatistics(sessionFactory);
+    }
+
+    static class RequestAwareStatistics extends StatisticsImpl {
+
+        RequestAwareStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            RequestStatistics.increment(Kind.ENTITY_LOAD);
+        }
+
+        @Override
+        public void fetchEntity(String entityName) {
+            super.fetchEntity(entityName);
+            RequestStatistics.increment(Kind.ENTITY_FETCH);
+        }
+
+        @Override
+        public void loadCollection(String role) {
+            super.loadCollection(role);
+            RequestStatistics.increment(Kind.COLLECTION_LOAD);
+        }
+
+        @Override
+        public void fetchCollection(String role) {
+            super.fetchCollection(role);
+            RequestStatistics.increment(Kind.COLLECTION_FETCH);
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            RequestStatistics.increment(Kind.QUERY);
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            RequestStatistics.increment(Kind.FLUSH);
+        }
+
+        @Override
+        public void entityCacheHit(NavigableRole entityName, String regionName) {
+            super.entityCacheHit(entityName, regionName);
+            RequestStatistics.increment(Kind.SECOND_LEVEL_CACHE_HIT);
+        }
+
+        @Override
+        public void entityCacheMiss(NavigableRole entityName, String regionName) {
+            super.entityCacheMiss(entityName, regionName);
+            RequestStatistics.increment(Kind.SECOND_LEVEL_CACHE_MISS);
+        }
+
+        @Override
+        public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheHit(collectionRole, regionName);
+            RequestStatistics.increment(Kind.SECOND_LEVEL_CACHE_HIT);
+        }
+
+        @Override
+        public void collectionCacheMiss(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheMiss(collectionRole, regionName);
+            RequestStatistics.increment(Kind.SECOND_LEVEL_CACHE_MISS);
+        }
+
+        @Override
+        public void queryCacheHit(String hql, String regionName) {
+            super.queryCacheHit(hql, regionName);
+            RequestStatistics.increment(Kind.QUERY_CACHE_HIT);
+        }
+
+        @Override
+        public void queryCacheMiss(String hql, String regionName) {
+            super.queryCacheMiss(hql, regionName);
+            RequestStatistics.increment(Kind.QUERY_CACHE_MISS);
+        }
+
+        @Override
+        public void queryPlanCacheHit(String hql) {
+            super.queryPlanCacheHit(hql);
+            RequestStatistics.increment(Kind.QUERY_PLAN_CACHE_HIT);
+        }
+
+        @Override
+        public void queryPlanCacheMiss(String hql) {
+            super.queryPlanCacheMiss(hql);
+            RequestStatistics.increment(Kind.QUERY_PLAN_CACHE_MISS);
+        }
+    }
+}
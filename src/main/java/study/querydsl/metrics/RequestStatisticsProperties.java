@@ -0,0 +1,18 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.request-statistics")
+public class RequestStatisticsProperties {
+
+    private boolean enabled = true;
+    private Duration bucket = Duration.ofMinutes(1); // 집계 단위. 창은 이 단위의 배수여야 한다
+    private List<Duration> windows = List.of(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15));
+}
@@ -0,0 +1,135 @@
+package study.querydsl.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * endpoint("GET /v3/members") 별로 {@link RequestStatistics} 를 bucket 단위 링 버퍼에 모으고,
+ * 설정된 창(1m, 5m, 15m ...) 별 합계와 요청당 평균을 돌려준다.
+ */
+@Component
+public class RequestStatisticsWindows {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Map<Duration, Integer> windows = new LinkedHashMap<>();
+    private final LongSupplier clock;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public RequestStatisticsWindows(RequestStatisticsProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    RequestStatisticsWindows(RequestStatisticsProperties properties, LongSupplier clock) {
+        this.bucketMillis = properties.getBucket().toMillis();
+        this.clock = clock;
+        int max = 1;
+        for (Duration window : properties.getWindows()) {
+            int buckets = (int) Math.max(1, window.toMillis() / bucketMillis);
+            windows.put(window, buckets);
+            max = Math.max(max, buckets);
+        }
+        this.bucketCount = max;
+    }
+
+    public void record(String endpoint, RequestStatistics statistics) {
+        rings.computeIfAbsent(endpoint, key -> new Ring(bucketCount)).record(currentBucket(), statistics);
+    }
+
+    /**
+     * endpoint -> window("PT5M") -> 스냅샷
+     */
+    public Map<String, Map<String, Snapshot>> snapshot() {
+        long current = currentBucket();
+        Map<String, Map<String, Snapshot>> result = new TreeMap<>();
+        rings.forEach((endpoint, ring) -> {
+            Map<String, Snapshot> byWindow = new LinkedHashMap<>();
+            windows.forEach((window, buckets) -> byWindow.put(window.toString(), ring.sum(current, buckets)));
+            result.put(endpoint, byWindow);
+        });
+        return result;
+    }
+
+    public void clear() {
+        rings.clear();
+    }
+
+    private long currentBucket() {
+        return clock.getAsLong() / bucketMillis;
+    }
+
+    private static class Ring {
+
+        private final long[] epochs;
+        private final long[] requests;
+        private final RequestStatistics[] totals;
+
+        Ring(int size) {
+            epochs = new long[size];
+            requests = new long[size];
+            totals = new RequestStatistics[size];
+            for (int i = 0; i < size; i++) {
+                epochs[i] = -1;
+                totals[i] = new RequestStatistics();
+            }
+        }
+
+        synchronized void record(long bucket, RequestStatistics statistics) {
+            int i = (int) (bucket % epochs.length);
+            if (epochs[i] != bucket) { // 한 바퀴 돌아온 오래된 bucket 은 비운다
+                epochs[i] = bucket;
+                requests[i] = 0;
+                totals[i].reset();
+            }
+            requests[i]++;
+            totals[i].add(statistics);
+        }
+
+        synchronized Snapshot sum(long current, int buckets) {
+            RequestStatistics total = new RequestStatistics();
+            long count = 0;
+            for (int i = 0; i < epochs.length; i++) {
+                if (epochs[i] > current - buckets && epochs[i] <= current) {
+                    count += requests[i];
+                    total.add(totals[i]);
+                }
+            }
+            return new Snapshot(count, total);
+        }
+    }
+
+    public static class Snapshot {
+
+        private final long requests;
+        private final RequestStatistics total;
+
+        Snapshot(long requests, RequestStatistics total) {
+            this.requests = requests;
+            this.total = total;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public Map<String, Long> getTotal() {
+            return total.toMap();
+        }
+
+        public Map<String, Double> getPerRequest() {
+            Map<String, Double> perRequest = new LinkedHashMap<>();
+            total.toMap().forEach((key, value) -> perRequest.put(key, requests == 0 ? 0 : (double) value / requests));
+            return perRequest;
+        }
+
+        public long get(RequestStatistics.Kind kind) {
+            return total.get(kind);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.metrics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 한 요청(스레드) 동안 실행된 statement 를 정규화한 SQL 별로 모은다. {@link JdbcStatementCounter} 가 채운다.
+ * <p>
+ * 같은 SQL 이 바인드 값만 바꿔서 여러 번 실행되면 N+1, 값까지 같은 SQL 이 다시 실행되면 중복으로 본다.
+ */
+public class StatementCollector {
+
+    private static final ThreadLocal<StatementCollector> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // batch fetch 의 IN (?, ?, ...) 는 길이와 상관없이 같은 SQL 로 본다
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final int MAX_TRACKED_SQL = 500;
+    private static final int MAX_TRACKED_VALUES = 1000;
+
+    private final int repeatThreshold;
+    private final Map<String, StatementReport.SqlStats> bySql = new HashMap<>();
+    private final Map<String, Integer> byValues = new HashMap<>();
+    private final Set<String> duplicated = new HashSet<>();
+    private long count;
+    private long elapsedNanos;
+
+    private StatementCollector(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public static StatementCollector start(int repeatThreshold) {
+        StatementCollector collector = new StatementCollector(repeatThreshold);
+        CURRENT.set(collector);
+        return collector;
+    }
+
+    public static StatementCollector current() {
+        return CURRENT.get();
+    }
+
+    public static StatementReport stop() {
+        StatementCollector collector = CURRENT.get();
+        CURRENT.remove();
+        return collector == null ? StatementReport.EMPTY : collector.report();
+    }
+
+    void record(String sql, String sqlWithValues, long nanos) {
+        count++;
+        elapsedNanos += nanos;
+
+        String normalized = normalize(sql);
+        StatementReport.SqlStats stats = bySql.get(normalized);
+        if (stats == null) {
+            if (bySql.size() >= MAX_TRACKED_SQL) {
+                return;
+            }
+            stats = new StatementReport.SqlStats(normalized);
+            bySql.put(normalized, stats);
+        }
+        stats.add(nanos, sqlWithValues);
+
+        if (sqlWithValues != null && (byValues.size() < MAX_TRACKED_VALUES || byValues.containsKey(sqlWithValues))) {
+            if (byValues.merge(sqlWithValues, 1, Integer::sum) == 2) {
+                duplicated.add(normalized);
+            }
+        }
+    }
+
+    public StatementReport report() {
+        return new StatementReport(count, elapsedNanos, bySql.values(), duplicated, repeatThreshold);
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String collapsed = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        return IN_LIST.matcher(collapsed).replaceAll("(?...)");
+    }
+}
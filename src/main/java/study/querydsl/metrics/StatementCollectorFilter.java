@@ -0,0 +1,77 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 {@link StatementCollector} 를 열고, 끝나면 지표와 로그로 남긴다.
+ * <ul>
+ *     <li>http.db.statements / http.db.time: 요청당 statement 수, DB 시간 (uri 별)</li>
+ *     <li>http.db.suspects: N+1, 중복 statement 가 나온 요청 수 (uri, type 별)</li>
+ * </ul>
+ * 의심 패턴이 있으면 WARN 로그에 SQL 과 함께 남긴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementCollectorFilter extends OncePerRequestFilter {
+
+    private final StatementCollectorProperties properties;
+    private final MeterRegistry registry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCollector.start(properties.getRepeatThreshold());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            report(request, StatementCollector.stop());
+        }
+    }
+
+    private void report(HttpServletRequest request, StatementReport report) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.db.statements")
+                .tag("uri", uri)
+                .register(registry)
+                .record(report.getCount());
+        Timer.builder("http.db.time")
+                .tag("uri", uri)
+                .register(registry)
+                .record(report.getElapsedNanos(), TimeUnit.NANOSECONDS);
+
+        if (!report.getNPlusOneSuspects().isEmpty()) {
+            registry.counter("http.db.suspects", "uri", uri, "type", "n+1").increment();
+        }
+        if (!report.getDuplicates().isEmpty()) {
+            registry.counter("http.db.suspects", "uri", uri, "type", "duplicate").increment();
+        }
+
+        if (report.hasSuspects()) {
+            log.warn("{} {} {}", request.getMethod(), uri, report.summary());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} {}", request.getMethod(), uri, report.headerValue());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.statement-collector")
+public class StatementCollectorProperties {
+
+    private boolean enabled = true;
+    private boolean responseHeader = false; // 개발 환경에서만 켠다 (X-DB-Statements)
+    private int repeatThreshold = 5; // 같은 SQL 이 이 횟수 이상 다른 값으로 실행되면 N+1 로 의심
+}
@@ -0,0 +1,38 @@
+package study.querydsl.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 개발 환경용. 응답 본문을 쓰기 직전(= 헤더를 아직 바꿀 수 있을 때)까지 모인 statement 통계를 헤더로 내려준다.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class StatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-DB-Statements";
+
+    private final StatementCollectorProperties properties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return properties.isEnabled() && properties.isResponseHeader();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        StatementCollector collector = StatementCollector.current();
+        if (collector != null) {
+            response.getHeaders().set(HEADER, collector.report().headerValue());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Getter
+public class StatementReport {
+
+    public static final StatementReport EMPTY =
+            new StatementReport(0, 0, Collections.emptyList(), Collections.emptySet(), Integer.MAX_VALUE);
+
+    private final long count;
+    private final long elapsedNanos;
+    private final List<SqlStats> nPlusOneSuspects; // 같은 SQL, 다른 바인드 값으로 repeatThreshold 번 이상
+    private final List<SqlStats> duplicates; // 바인드 값까지 같은 SQL 이 두 번 이상
+    private final List<SqlStats> statements; // 실행된 SQL 전부 (정규화한 SQL 별로 하나)
+
+    StatementReport(long count, long elapsedNanos, Collection<SqlStats> stats, Set<String> duplicated, int repeatThreshold) {
+        this.count = count;
+        this.elapsedNanos = elapsedNanos;
+        this.nPlusOneSuspects = stats.stream()
+                .filter(s -> s.getCount() >= repeatThreshold && s.getDistinctValues() > 1)
+                .sorted(Comparator.comparingLong(SqlStats::getCount).reversed())
+                .collect(Collectors.toList());
+        this.duplicates = stats.stream()
+                .filter(s -> duplicated.contains(s.getSql()))
+                .collect(Collectors.toList());
+        this.statements = new ArrayList<>(stats);
+    }
+
+    public boolean hasSuspects() {
+        return !nPlusOneSuspects.isEmpty() || !duplicates.isEmpty();
+    }
+
+    public double elapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    // 예) count=12;time=3.41ms;n+1=1;duplicate=0
+    public String headerValue() {
+        return String.format("count=%d;time=%.2fms;n+1=%d;duplicate=%d",
+                count, elapsedMillis(), nPlusOneSuspects.size(), duplicates.size());
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder(headerValue());
+        for (SqlStats s : nPlusOneSuspects) {
+            sb.append("\n  N+1 x").append(s.getCount()).append(": ").append(s.getSql());
+        }
+        for (SqlStats s : duplicates) {
+            sb.append("\n  duplicate x").append(s.getCount()).append(": ").append(s.getSql());
+        }
+        return sb.toString();
+    }
+
+    @Getter
+    public static class SqlStats {
+
+        private static final int MAX_VALUES = 2; // 서로 다른 값이 있는지만 알면 된다
+
+        private final String sql;
+        private long count;
+        private long elapsedNanos;
+        private final Set<String> values = new HashSet<>(MAX_VALUES);
+
+        SqlStats(String sql) {
+            this.sql = sql;
+        }
+
+        void add(long nanos, String sqlWithValues) {
+            count++;
+            elapsedNanos += nanos;
+            if (sqlWithValues != null && values.size() < MAX_VALUES) {
+                values.add(sqlWithValues);
+            }
+        }
+
+        public int getDistinctValues() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * count 쿼리를 content 쿼리와 동시에 돌리기 위한 전용 스레드 풀.
+ * <p>
+ * count 는 별도 스레드에서 자기만의 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)으로 실행된다.
+ * 그래서 호출한 쪽 트랜잭션의 커밋되지 않은 변경은 보이지 않으므로, 쓰기 트랜잭션 안에서 호출되면 사용하지 않는다.
+ * <p>
+ * 요청 스레드는 자기 커넥션을 쥔 채 count 를 기다리고 count 는 같은 풀에서 커넥션을 하나 더 얻는다. 풀이 요청 스레드로
+ * 가득 차면 count 가 커넥션을 못 얻으므로, 스레드 수를 풀 크기의 절반 이하로 두고 timeout 이 지나면 요청 스레드에서
+ * 직접 센다.
+ */
+@Component
+public class AsyncCountExecutor implements DisposableBean {
+
+    private final boolean enabled;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration timeout;
+
+    public AsyncCountExecutor(AsyncCountProperties properties, PlatformTransactionManager transactionManager,
+                              DataSource dataSource) {
+        this.enabled = properties.isEnabled();
+        this.timeout = properties.getTimeout();
+
+        int poolSize = poolSize(properties.getPoolSize(), dataSource);
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("member-count-");
+        executor.initialize();
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 트랜잭션 timeout 이 쿼리 timeout(javax.persistence.query.timeout)으로 걸려서 취소된 count 의 statement 도 끊긴다
+        readOnlyTransaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+    }
+
+    static int poolSize(int configured, DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int connections = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return Math.max(1, Math.min(configured, connections / 2));
+            }
+        } catch (SQLException e) {
+            // 풀 크기를 모르면 설정값 그대로
+        }
+        return configured;
+    }
+
+    public boolean isApplicable() {
+        if (!enabled) {
+            return false;
+        }
+        // 쓰기 트랜잭션이면 자기가 방금 넣은 데이터도 count 에 포함되어야 하므로 같은 스레드에서 센다
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * @return 풀이 가득 차서 받아주지 못하면 null
+     */
+    public Future<Long> submit(Supplier<Long> countQuery) {
+        try {
+            return executor.submit(() -> readOnlyTransaction.execute(status -> countQuery.get()));
+        } catch (TaskRejectedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * timeout 안에 끝나지 않으면(커넥션을 기다리는 중이어도) 취소하고 fallback 으로 요청 스레드에서 센다.
+     * cancel(true) 는 worker 스레드를 인터럽트할 뿐 이미 실행 중인 JDBC statement 는 멈추지 않는다.
+     * 그 statement 는 트랜잭션 timeout 이 지나면 드라이버가 끊는다.
+     */
+    public long await(Future<Long> count, Supplier<Long> fallback) {
+        try {
+            return count.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            count.cancel(true);
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count.cancel(true);
+            throw new IllegalStateException("interrupted while waiting for count query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("count query failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
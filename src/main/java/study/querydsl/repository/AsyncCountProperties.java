@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.async-count")
+public class AsyncCountProperties {
+
+    private boolean enabled = false;
+    private int poolSize = 8; // 커넥션 풀 최대 크기의 절반을 넘지 않게 줄어든다
+    private int queueCapacity = 100; // 넘치면 요청 스레드에서 기존처럼 순서대로 count
+    // 이 시간 안에 count 가 끝나지 않으면 요청 스레드에서 직접 센다. 커넥션 풀 connectionTimeout(30s) 보다 짧아야 한다
+    private Duration timeout = Duration.ofSeconds(3);
+}
@@ -0,0 +1,105 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import study.querydsl.dto.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * fields= 로 고를 수 있는 MemberTeamDto 필드. 요청한 필드만 select 하고 그 필드만 응답한다.
+ * teamId 는 member.team_id(FK) 로 읽으므로 teamName 을 고를 때만 team 조인이 필요하다.
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String key;
+    private final Expression<?> path;
+    private final boolean needsTeam;
+
+    MemberField(String key, Expression<?> path, boolean needsTeam) {
+        this.key = key;
+        this.path = path;
+        this.needsTeam = needsTeam;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * "username,age" -&gt; {USERNAME, AGE}. 비어 있으면 전체, 모르는 이름이면 InvalidRequestException
+     */
+    public static Set<MemberField> parse(String fields) {
+        Set<MemberField> result = EnumSet.noneOf(MemberField.class);
+        if (fields != null) {
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                if (!trimmed.isEmpty()) {
+                    result.add(of(trimmed));
+                }
+            }
+        }
+        return result.isEmpty() ? EnumSet.allOf(MemberField.class) : result;
+    }
+
+    private static MemberField of(String key) {
+        for (MemberField field : values()) {
+            if (field.key.equalsIgnoreCase(key)) {
+                return field;
+            }
+        }
+        throw new InvalidRequestException("unknown field, expected one of memberId, username, age, teamId, teamName");
+    }
+
+    static boolean needsTeam(Set<MemberField> fields) {
+        return fields.stream().anyMatch(field -> field.needsTeam);
+    }
+
+    // 필드 한 개여도 Tuple 로 받도록 항상 QTuple 을 쓴다
+    static Expression<Tuple> projection(Set<MemberField> fields) {
+        Expression<?>[] paths = new Expression<?>[fields.size()];
+        int i = 0;
+        for (MemberField field : fields) {
+            paths[i++] = field.path;
+        }
+        return Projections.tuple(paths);
+    }
+
+    // 쿼리 캐시 키용. 필드 조합마다 JPQL 이 다르다
+    static String queryName(String name, Set<MemberField> fields) {
+        int mask = 0;
+        for (MemberField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        return name + ".fields" + mask;
+    }
+
+    static List<Map<String, Object>> toMaps(Set<MemberField> fields, Collection<Tuple> rows) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> map = new LinkedHashMap<>(fields.size() * 2);
+            int i = 0;
+            for (MemberField field : fields) {
+                map.put(field.key, row.get(i++, Object.class));
+            }
+            result.add(map);
+        }
+        return result;
+    }
+}
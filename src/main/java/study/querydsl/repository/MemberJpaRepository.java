@@ -1,10 +1,10 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -13,22 +13,30 @@ import study.querydsl.entity.Member;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
+@Transactional(readOnly = true) // 조회는 replica 로 (ReplicationRoutingDataSource)
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberQueryCache queryCache;
+    private final MemberSearchViewStatus viewStatus;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberQueryCache queryCache,
+                               MemberSearchViewStatus viewStatus) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = queryFactory;
+        this.queryCache = queryCache;
+        this.viewStatus = viewStatus;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -66,38 +74,75 @@ public class MemberJpaRepository {
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-
-        }
-        if (hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-        if (condition.getAgeGoe() != null){
-            builder.and(member.age.goe(condition.getAgeGoe()));
+        return queryCache.fetch("jpa.searchByBuilder", condition, shape -> {
+            BooleanBuilder builder = new BooleanBuilder();
+            if (shape.hasUsername()) {
+                builder.and(shape.usernameEq());
+
+            }
+            if (shape.hasUsernamePrefix()) {
+                builder.and(shape.usernameStartsWith());
+            }
+            if (shape.hasTeamName()) {
+                builder.and(shape.teamNameEq());
+            }
+            if (shape.hasAgeGoe()){
+                builder.and(shape.ageGoe());
+
+            }
+            if(shape.hasAgeLoe()){
+                builder.and(shape.ageLoe());
+            }
+
+            return shape.joinTeam(queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member), true)
+                    .where(builder);
+        });
+    }
 
-        }
-        if(condition.getAgeLoe() != null){
-            builder.and(member.age.loe(condition.getAgeLoe()));
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (viewStatus.isReadable()) {
+            return queryCache.fetch("jpa.view.search", condition, shape -> queryFactory
+                    .select(new QMemberTeamDto(
+                            memberSearchView.memberId,
+                            memberSearchView.username,
+                            memberSearchView.age,
+                            memberSearchView.teamId,
+                            memberSearchView.teamName))
+                    .from(memberSearchView)
+                    .where(shape.viewConditions()));
         }
 
-        return queryFactory
+        return queryCache.fetch("jpa.search", condition, shape -> shape.joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
-    }
+                .from(member), true)
+                .where(
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                ));
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    }
 
-        return queryFactory
+    /**
+     * forward-only 커서로 한 건씩 읽는다. 호출하는 쪽에서 트랜잭션 안에서 사용하고 반드시 close 해야 한다.
+     */
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        return shape.bind(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -107,33 +152,14 @@ public class MemberJpaRepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
-
-    }
-    //다양한 함수들을 만들어서 사용 할 수 있다.
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe){
-        return ageGoe(ageLoe).and(ageGoe(ageGoe));
-    }
-
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe !=  null ? member.age.loe(ageLoe): null;
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                ), condition)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .stream();
     }
 }
@@ -0,0 +1,146 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.InvalidRequestException;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 검색 쿼리를 (쿼리 이름, {@link MemberSearchShape}) 단위로 한 번만 JPQL 로 직렬화해 두고 재사용한다.
+ * <p>
+ * 호출할 때마다 Querydsl 표현식 트리를 만들고 JPQLSerializer 를 돌리는 대신 캐시된 JPQL 에 파라미터만 바인딩한다.
+ * JPQL 문자열이 모양마다 하나로 고정되므로 하이버네이트 QueryPlanCache 도 항상 같은 plan 을 찾는다.
+ */
+@Component
+public class MemberQueryCache {
+
+    private final EntityManager em;
+    private final ConcurrentMap<String, CompiledQuery> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter serializationSaved;
+
+    public MemberQueryCache(EntityManager em, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.hits = Counter.builder("member.query.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("member.query.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.serializationSaved = Counter.builder("member.query.serialization.saved")
+                .description("JPQL serialization time skipped by reusing cached queries")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public <T> List<T> fetch(String name, MemberSearchCondition condition,
+                             Function<MemberSearchShape, JPAQuery<T>> template) {
+        CompiledQuery compiled = compile(name, condition, template);
+        return compiled.project(createQuery(compiled, condition).getResultList());
+    }
+
+    /**
+     * @throws InvalidRequestException offset 이 JPA 가 받는 int 범위를 넘으면 (page x size 가 너무 큰 요청)
+     */
+    public <T> List<T> fetch(String name, MemberSearchCondition condition,
+                             Function<MemberSearchShape, JPAQuery<T>> template, long offset, int limit) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new InvalidRequestException("page * size must not exceed " + Integer.MAX_VALUE);
+        }
+        CompiledQuery compiled = compile(name, condition, template);
+        Query query = createQuery(compiled, condition)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit);
+        return compiled.project(query.getResultList());
+    }
+
+    public <T> T fetchOne(String name, MemberSearchCondition condition,
+                          Function<MemberSearchShape, JPAQuery<T>> template) {
+        CompiledQuery compiled = compile(name, condition, template);
+        List<T> result = compiled.project(createQuery(compiled, condition).getResultList());
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private CompiledQuery compile(String name, MemberSearchCondition condition,
+                                  Function<MemberSearchShape, ? extends JPAQuery<?>> template) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        String key = name + ":" + shape.getMask();
+
+        CompiledQuery compiled = cache.get(key);
+        if (compiled != null) {
+            hits.increment();
+            serializationSaved.increment(compiled.serializationNanos / 1e9);
+            return compiled;
+        }
+        misses.increment();
+        return cache.computeIfAbsent(key, k -> CompiledQuery.serialize(template.apply(shape), em));
+    }
+
+    private Query createQuery(CompiledQuery compiled, MemberSearchCondition condition) {
+        Query query = em.createQuery(compiled.jpql);
+        JPAUtil.setConstants(query, compiled.constants,
+                MemberSearchShape.of(condition).bind(condition));
+        return query;
+    }
+
+    private static class CompiledQuery {
+
+        private final String jpql;
+        private final List<Object> constants;
+        private final Expression<?> projection;
+        private final long serializationNanos;
+
+        private CompiledQuery(String jpql, List<Object> constants, Expression<?> projection, long serializationNanos) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.projection = projection;
+            this.serializationNanos = serializationNanos;
+        }
+
+        static CompiledQuery serialize(JPAQuery<?> query, EntityManager em) {
+            long start = System.nanoTime();
+            JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT, em);
+            serializer.serialize(query.getMetadata(), false, null);
+            String jpql = serializer.toString();
+            long elapsed = System.nanoTime() - start;
+            return new CompiledQuery(jpql, new ArrayList<>(serializer.getConstants()),
+                    query.getMetadata().getProjection(), elapsed);
+        }
+
+        // JPAQuery 가 ResultTransformer 로 해 주던 DTO 변환을 직접 한다
+        @SuppressWarnings("unchecked")
+        <T> List<T> project(List<?> rows) {
+            if (!(projection instanceof FactoryExpression)) {
+                return (List<T>) rows;
+            }
+            FactoryExpression<?> factory = (FactoryExpression<?>) projection;
+            List<T> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Object[] args = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+                result.add((T) factory.newInstance(args));
+            }
+            return result;
+        }
+    }
+}
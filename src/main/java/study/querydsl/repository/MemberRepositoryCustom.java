@@ -2,13 +2,21 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.CursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    CursorResult<MemberTeamDto> searchAfter(MemberSearchCondition condition, String cursor, int size);
+
+    // fields= 로 고른 필드만 조회한다. 키는 MemberField.getKey()
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields);
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -7,126 +8,204 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.CursorResult;
+import study.querydsl.dto.InvalidCursorException;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 
-import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
 import static study.querydsl.entity.QTeam.team;
 
+// 조회 전용. replica 가 설정되어 있으면 replica 에서 읽는다 (ReplicationRoutingDataSource)
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
-
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    private final MemberCountCache countCache;
+    private final MemberQueryCache queryCache;
+    private final AsyncCountExecutor asyncCount;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchViewStatus viewStatus;
+
+    public MemberRepositoryImpl(JPAQueryFactory queryFactory, MemberCountCache countCache,
+                                MemberQueryCache queryCache, AsyncCountExecutor asyncCount,
+                                MemberSearchResultCache resultCache, MemberSearchViewStatus viewStatus) {
+        this.queryFactory = queryFactory;
+        this.countCache = countCache;
+        this.queryCache = queryCache;
+        this.asyncCount = asyncCount;
+        this.resultCache = resultCache;
+        this.viewStatus = viewStatus;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (viewStatus.isReadable()) {
+            return resultCache.get("search", condition, null,
+                    () -> queryCache.fetch("view.search", condition, this::selectFromView));
+        }
 
-        return queryFactory
+        return resultCache.get("search", condition, null, () -> queryCache.fetch("search", condition, shape -> shape.joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), true)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                )));
 
     }
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> results = getMemberTeamDtos(condition, pageable);
+
+        return new PageImpl<>(results, pageable, totalCount(condition));
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+
+    public long totalCount(MemberSearchCondition condition) {
+        if (viewStatus.isReadable()) {
+            return countCache.get(condition, () -> queryCache.fetchOne("view.count", condition, shape -> queryFactory
+                    .select(memberSearchView.count())
+                    .from(memberSearchView)
+                    .where(shape.viewConditions())));
+        }
+        return countCache.get(condition, () -> queryCache.fetchOne("count", condition, shape -> shape.joinTeam(queryFactory
+                .select(member.count())
+                .from(member), false)
+                .where(
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                )));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        Future<Long> count = startCount(condition);
+        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable);
+
+        if (count == null) {
+            return PageableExecutionUtils.getPage(content, pageable, () -> totalCount(condition));
+            //return new PageImpl<>(content, pageable, total);
+        }
+
+        AtomicBoolean countUsed = new AtomicBoolean();
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            countUsed.set(true);
+            return asyncCount.await(count, () -> totalCount(condition));
+        });
+        if (!countUsed.get()) {
+            count.cancel(true); // content 만으로 전체 건수를 알 수 있었다
+        }
+        return page;
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe !=  null ? member.age.loe(ageLoe): null;
+    // 캐시에 없는 count 를 content 쿼리와 동시에 시작한다. 동시에 돌릴 수 없으면 null
+    private Future<Long> startCount(MemberSearchCondition condition) {
+        if (!asyncCount.isApplicable() || countCache.contains(condition)) {
+            return null;
+        }
+        return asyncCount.submit(() -> totalCount(condition));
     }
 
-    @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
+    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition, Pageable pageable) {
+        if (viewStatus.isReadable()) {
+            return resultCache.get("searchPage", condition, pageable, () -> queryCache.fetch("view.searchPage", condition,
+                    this::selectFromView, pageable.getOffset(), pageable.getPageSize()));
+        }
+        return resultCache.get("searchPage", condition, pageable, () -> queryCache.fetch("searchPage", condition, shape -> shape.joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), true)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
-
-        return new PageImpl<>(results, pageable, totalCount(condition, pageable));
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                ), pageable.getOffset(), pageable.getPageSize()));
     }
 
-
-    public Long totalCount(MemberSearchCondition condition, Pageable pageable) {
+    // member_search_view 한 테이블에서 조인 없이 읽는다
+    private JPAQuery<MemberTeamDto> selectFromView(MemberSearchShape shape) {
         return queryFactory
-                .select(member.count())
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchOne();
+                .select(new QMemberTeamDto(
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName))
+                .from(memberSearchView)
+                .where(shape.viewConditions());
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable);
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        List<Tuple> rows = queryCache.fetch(MemberField.queryName("search", fields), condition,
+                shape -> selectFields(shape, fields));
+        return MemberField.toMaps(fields, rows);
+    }
 
-        JPAQuery<Long> countQuery = queryFactory
-                .select(member.count())
-                .from(member)
-                .leftJoin(member.team, team)
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable) {
+        List<Tuple> rows = queryCache.fetch(MemberField.queryName("searchPage", fields), condition,
+                shape -> selectFields(shape, fields), pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(MemberField.toMaps(fields, rows), pageable, () -> totalCount(condition));
+    }
+
+    private JPAQuery<Tuple> selectFields(MemberSearchShape shape, Set<MemberField> fields) {
+        return shape.joinTeam(queryFactory
+                .select(MemberField.projection(fields))
+                .from(member), MemberField.needsTeam(fields))
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
                 );
-
-
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
-        //return new PageImpl<>(content, pageable, total);
-
     }
 
-    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+    /**
+     * offset 대신 member.id 를 기준으로 seek 하는 keyset 페이징.
+     * 몇 번째 페이지든 PK 인덱스에서 바로 시작하므로 비용이 첫 페이지와 같다.
+     */
+    @Override
+    public CursorResult<MemberTeamDto> searchAfter(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new InvalidCursorException("size must be positive");
+        }
+
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        List<MemberTeamDto> content = shape.bind(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -136,15 +215,26 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                        memberIdGt(MemberCursor.decode(cursor)),
+                        shape.usernameEq(),
+                        shape.usernameStartsWith(),
+                        shape.teamNameEq(),
+                        shape.ageGoe(),
+                        shape.ageLoe()
+                ), condition)
+                .orderBy(member.id.asc())
+                .limit(size + 1) // 한 건 더 읽어서 다음 페이지 존재 여부 확인
                 .fetch();
-        return content;
+
+        if (content.size() <= size) {
+            return new CursorResult<>(content, null);
+        }
+        content = content.subList(0, size);
+        return new CursorResult<>(content, MemberCursor.encode(content.get(size - 1).getMemberId()));
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
     }
 
 
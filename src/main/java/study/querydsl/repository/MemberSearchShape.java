@@ -0,0 +1,217 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 의 어떤 조건이 들어왔는지(모양)만 나타낸다. 값 대신 {@link Param} 으로 조건을 만들기 때문에
+ * 모양이 같으면 JPQL 도 같고, 값은 실행할 때 {@link #bind(MemberSearchCondition)} 로 채운다.
+ * username, usernamePrefix, teamName, ageGoe, ageLoe 다섯 조건의 조합에 ignoreCase 여부가 붙는다.
+ * <p>
+ * usernamePrefix 는 like 대신 [prefix, prefix 다음 문자열) 범위 조건으로 만든다. 바인드 파라미터로 된 like 는
+ * 실행 계획을 세울 때 값을 몰라서 인덱스를 못 타는 DB(H2 등)가 있기 때문이다.
+ * prefix 가 전부 '\uFFFF' 라서 다음 문자열이 없으면 하한만 건다.
+ * ignoreCase 면 소문자로 저장된 member.usernameLower 컬럼(인덱스)을 비교한다.
+ */
+public class MemberSearchShape {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> USERNAME_PREFIX_FROM = new Param<>(String.class, "usernamePrefixFrom");
+    static final Param<String> USERNAME_PREFIX_TO = new Param<>(String.class, "usernamePrefixTo");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private static final int HAS_USERNAME = 1;
+    private static final int HAS_TEAM_NAME = 1 << 1;
+    private static final int HAS_AGE_GOE = 1 << 2;
+    private static final int HAS_AGE_LOE = 1 << 3;
+    private static final int HAS_USERNAME_PREFIX = 1 << 4;
+    private static final int IGNORE_CASE = 1 << 5;
+    private static final int UNBOUNDED_PREFIX = 1 << 6;
+
+    private final int mask;
+
+    private MemberSearchShape(int mask) {
+        this.mask = mask;
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalize();
+        int mask = 0;
+        if (normalized.getUsername() != null) mask |= HAS_USERNAME;
+        if (normalized.getTeamName() != null) mask |= HAS_TEAM_NAME;
+        if (normalized.getAgeGoe() != null) mask |= HAS_AGE_GOE;
+        if (normalized.getAgeLoe() != null) mask |= HAS_AGE_LOE;
+        if (normalized.getUsernamePrefix() != null) mask |= HAS_USERNAME_PREFIX;
+        if (normalized.isIgnoreCase()) mask |= IGNORE_CASE;
+        if (normalized.getUsernamePrefix() != null && prefixUpperBound(normalized.isIgnoreCase()
+                ? Member.lowerCase(normalized.getUsernamePrefix()) : normalized.getUsernamePrefix()) == null) {
+            mask |= UNBOUNDED_PREFIX;
+        }
+        return new MemberSearchShape(mask);
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * 지표 태그용 이름. 예) "teamName+ageGoe", "usernamePrefix+ignoreCase", 조건이 없으면 "none"
+     */
+    public String describe() {
+        StringJoiner joiner = new StringJoiner("+");
+        joiner.setEmptyValue("none");
+        if (hasUsername()) joiner.add("username");
+        if (hasUsernamePrefix()) joiner.add("usernamePrefix");
+        if (hasTeamName()) joiner.add("teamName");
+        if (hasAgeGoe()) joiner.add("ageGoe");
+        if (hasAgeLoe()) joiner.add("ageLoe");
+        if (isIgnoreCase()) joiner.add("ignoreCase");
+        return joiner.toString();
+    }
+
+    public boolean hasUsername() {
+        return (mask & HAS_USERNAME) != 0;
+    }
+
+    public boolean hasUsernamePrefix() {
+        return (mask & HAS_USERNAME_PREFIX) != 0;
+    }
+
+    private boolean hasPrefixUpperBound() {
+        return (mask & UNBOUNDED_PREFIX) == 0;
+    }
+
+    public boolean isIgnoreCase() {
+        return (mask & IGNORE_CASE) != 0;
+    }
+
+    public boolean hasTeamName() {
+        return (mask & HAS_TEAM_NAME) != 0;
+    }
+
+    public boolean hasAgeGoe() {
+        return (mask & HAS_AGE_GOE) != 0;
+    }
+
+    public boolean hasAgeLoe() {
+        return (mask & HAS_AGE_LOE) != 0;
+    }
+
+    /**
+     * team 조인은 필요할 때만 붙인다. teamName 조건이 있으면 어차피 팀이 있는 회원만 남으므로 inner join,
+     * 조건 없이 team 컬럼만 select 하면 팀 없는 회원도 나와야 하므로 left join, 둘 다 아니면 조인하지 않는다.
+     * Member -> Team 은 다대일이라 조인을 빼도 회원 수는 변하지 않는다.
+     */
+    public <T> JPAQuery<T> joinTeam(JPAQuery<T> query, boolean selectsTeam) {
+        if (hasTeamName()) {
+            return query.join(member.team, team);
+        }
+        if (selectsTeam) {
+            return query.leftJoin(member.team, team);
+        }
+        return query;
+    }
+
+    public BooleanExpression usernameEq() {
+        if (!hasUsername()) {
+            return null;
+        }
+        return isIgnoreCase() ? member.usernameLower.eq(USERNAME) : member.username.eq(USERNAME);
+    }
+
+    public BooleanExpression usernameStartsWith() {
+        if (!hasUsernamePrefix()) {
+            return null;
+        }
+        return prefixRange(isIgnoreCase() ? member.usernameLower : member.username);
+    }
+
+    private BooleanExpression prefixRange(StringPath column) {
+        BooleanExpression from = column.goe(USERNAME_PREFIX_FROM);
+        return hasPrefixUpperBound() ? from.and(column.lt(USERNAME_PREFIX_TO)) : from;
+    }
+
+    public BooleanExpression teamNameEq() {
+        return hasTeamName() ? team.name.eq(TEAM_NAME) : null;
+    }
+
+    public BooleanExpression ageGoe() {
+        return hasAgeGoe() ? member.age.goe(AGE_GOE) : null;
+    }
+
+    public BooleanExpression ageLoe() {
+        return hasAgeLoe() ? member.age.loe(AGE_LOE) : null;
+    }
+
+    /**
+     * 같은 조건을 member_search_view 에 건다. teamName 도 view 의 컬럼이라 조인 없이 한 테이블에서 끝나고,
+     * 파라미터는 같으므로 {@link #bind(MemberSearchCondition)} 를 그대로 쓴다.
+     */
+    public Predicate[] viewConditions() {
+        StringPath username = isIgnoreCase() ? memberSearchView.usernameLower : memberSearchView.username;
+        return new Predicate[]{
+                hasUsername() ? username.eq(USERNAME) : null,
+                hasUsernamePrefix() ? prefixRange(username) : null,
+                hasTeamName() ? memberSearchView.teamName.eq(TEAM_NAME) : null,
+                hasAgeGoe() ? memberSearchView.age.goe(AGE_GOE) : null,
+                hasAgeLoe() ? memberSearchView.age.loe(AGE_LOE) : null
+        };
+    }
+
+    public Map<ParamExpression<?>, Object> bind(MemberSearchCondition condition) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        if (hasUsername()) params.put(USERNAME, caseOf(condition.getUsername()));
+        if (hasUsernamePrefix()) {
+            String prefix = caseOf(condition.getUsernamePrefix());
+            params.put(USERNAME_PREFIX_FROM, prefix);
+            if (hasPrefixUpperBound()) params.put(USERNAME_PREFIX_TO, prefixUpperBound(prefix));
+        }
+        if (hasTeamName()) params.put(TEAM_NAME, condition.getTeamName());
+        if (hasAgeGoe()) params.put(AGE_GOE, condition.getAgeGoe());
+        if (hasAgeLoe()) params.put(AGE_LOE, condition.getAgeLoe());
+        return params;
+    }
+
+    /**
+     * 쿼리 캐시를 거치지 않는 쿼리(커서 페이징, 스트림)에 값을 바로 채운다.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> JPAQuery<T> bind(JPAQuery<T> query, MemberSearchCondition condition) {
+        bind(condition).forEach((param, value) -> query.set((ParamExpression) param, value));
+        return query;
+    }
+
+    private String caseOf(String value) {
+        return isIgnoreCase() ? Member.lowerCase(value) : value;
+    }
+
+    /**
+     * prefix 로 시작하는 모든 문자열보다 큰 가장 작은 문자열. 마지막 글자를 하나 올린다. 예) "kim" -> "kin"
+     * 끝의 '\uFFFF' 는 올릴 수 없어서 떼고 앞 글자를 올린다. 전부 '\uFFFF' 면 그런 문자열이 없으므로 null
+     */
+    static String prefixUpperBound(String prefix) {
+        for (int last = prefix.length() - 1; last >= 0; last--) {
+            char c = prefix.charAt(last);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, last) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+}
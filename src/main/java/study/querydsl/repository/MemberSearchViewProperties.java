@@ -0,0 +1,29 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.search-view")
+public class MemberSearchViewProperties {
+
+    // /v1~/v3 검색을 member_search_view 에서 읽는다. 켜면 view 도 갱신한다
+    private boolean enabled = false;
+    // 읽지 않아도 view 를 갱신한다. enabled 를 켜기 전에 미리 채워 둘 때 쓴다
+    private boolean maintain = false;
+    // member/team 과 전체 비교해서 고치는 주기
+    private Duration checkInterval = Duration.ofMinutes(10);
+    // 벌크 연산 뒤 view 를 고치는 주기. 그동안 검색은 조인 쿼리로 돌아간다
+    private Duration repairDelay = Duration.ofSeconds(5);
+
+    /**
+     * 리스너 등록과 정합성 검사 시작은 기동할 때 이 값으로 정한다. 꺼져 있으면 view 는 갱신되지 않고 읽지도 않는다.
+     */
+    public boolean isMaintained() {
+        return enabled || maintain;
+    }
+}
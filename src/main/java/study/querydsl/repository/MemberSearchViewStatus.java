@@ -0,0 +1,93 @@
+package study.querydsl.repository;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.event.AfterCompletion;
+import study.querydsl.event.MemberDataChangedEvent;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 검색이 member_search_view 를 읽어도 되는지 정한다. 스위치가 켜져 있고 view 가 맞다고 확인된 동안만 읽는다.
+ * <p>
+ * 엔티티 변경은 같은 트랜잭션에서 view 에 반영되지만 벌크 update/delete 는 어떤 row 가 바뀌었는지 모른다.
+ * 그래서 벌크 statement 가 나가는 순간부터 그 트랜잭션이 끝나고 MemberSearchViewChecker 가 view 를 고칠 때까지
+ * 조인 쿼리로 돌아간다. 기동 직후에도 첫 검사가 끝나야 view 를 읽는다. view 를 갱신하지 않는 설정이면 검사가 돌지 않으므로
+ * 읽지 않는다.
+ * <p>
+ * 팀 이름 변경과 같은 팀 회원 추가가 동시에 진행되면 서로의 커밋 전 변경을 못 봐서 회원 row 가 예전 팀 이름으로
+ * 커밋될 수 있다. 그래서 팀 변경이 커밋되면 그 팀을 모아 두었다가 MemberSearchViewChecker 가 repairDelay 안에 다시 맞춘다.
+ * 그보다 늦게 커밋된 회원 row 는 다음 전체 검사(checkInterval)까지 예전 팀 이름으로 검색된다.
+ */
+@Component
+public class MemberSearchViewStatus {
+
+    private final MemberSearchViewProperties properties;
+    private final AtomicInteger unrepaired = new AtomicInteger(1); // 고쳐지지 않은 벌크 트랜잭션 (기동 직후 1)
+    private final AtomicInteger completed = new AtomicInteger(1); // 그중 끝나서 고칠 수 있는 것
+    private final Set<Long> changedTeams = ConcurrentHashMap.newKeySet(); // 커밋된 팀 변경, 이름을 다시 맞출 대상
+
+    public MemberSearchViewStatus(MemberSearchViewProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isReadable() {
+        return properties.isEnabled() && unrepaired.get() == 0;
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        if (!event.isBulk()) {
+            if (event.getTable() == MemberDataChangedEvent.Table.TEAM && !event.getTeamIds().isEmpty()) {
+                Set<Long> teamIds = event.getTeamIds();
+                // 팀 변경은 드물어서 이벤트마다 등록한다. 롤백돼도 다시 맞추는 것뿐이라 상관없다
+                if (!AfterCompletion.runOnce(teamIds, () -> changedTeams.addAll(teamIds))) {
+                    changedTeams.addAll(teamIds);
+                }
+            }
+            return;
+        }
+        if (AfterCompletion.isRegistered(this)) {
+            return;
+        }
+        unrepaired.incrementAndGet();
+        if (!AfterCompletion.runOnce(this, completed::incrementAndGet)) {
+            completed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 끝난 벌크 트랜잭션 수를 가져간다. view 를 고친 뒤 {@link #repaired(int)}, 실패하면 {@link #repairFailed(int)}
+     */
+    public int takeCompleted() {
+        return completed.getAndSet(0);
+    }
+
+    /**
+     * 이름을 다시 맞출 팀을 가져간다. 실패하면 {@link #teamsResyncFailed(Set)}
+     */
+    public Set<Long> takeChangedTeams() {
+        Set<Long> teamIds = new HashSet<>();
+        for (Long teamId : changedTeams) {
+            if (changedTeams.remove(teamId)) {
+                teamIds.add(teamId);
+            }
+        }
+        return teamIds;
+    }
+
+    public void teamsResyncFailed(Set<Long> teamIds) {
+        changedTeams.addAll(teamIds);
+    }
+
+    public void repaired(int count) {
+        unrepaired.addAndGet(-count);
+    }
+
+    public void repairFailed(int count) {
+        completed.addAndGet(count);
+    }
+}
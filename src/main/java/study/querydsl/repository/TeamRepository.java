@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    //select t from Team t where t.name = ? , 결과(id 목록)는 쿼리 캐시, 엔티티는 2차 캐시에서 꺼낸다
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "team-by-name")
+    })
+    List<Team> findByName(String name);
+}
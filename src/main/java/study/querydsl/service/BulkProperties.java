@@ -0,0 +1,16 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.bulk")
+public class BulkProperties {
+
+    private int chunkSize = 1000; // chunk 하나 = 트랜잭션 하나, IN 절 크기
+    private Duration throttle = Duration.ofMillis(50); // chunk 사이에 쉬는 시간
+}
@@ -0,0 +1,14 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.export")
+public class ExportProperties {
+
+    private int fetchSize = 1000; // JDBC fetch size
+    private int clearInterval = 1000; // 이 건수마다 응답을 flush 하고 영속성 컨텍스트를 비운다
+}
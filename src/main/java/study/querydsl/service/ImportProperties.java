@@ -0,0 +1,14 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.import")
+public class ImportProperties {
+
+    private int chunkSize = 10_000; // 이 건수마다 커밋
+    private int batchSize = 500; // 이 건수마다 flush/clear, hibernate.jdbc.batch_size 와 맞춘다
+}
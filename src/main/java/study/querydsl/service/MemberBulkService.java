@@ -0,0 +1,310 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+import study.querydsl.event.DataChangeListener;
+import study.querydsl.event.MemberDataChangedEvent;
+import study.querydsl.event.MemberSearchViewWriter;
+import study.querydsl.event.TeamStatsListener;
+import study.querydsl.repository.MemberSearchViewProperties;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 조건에 맞는 회원을 id 순서로 chunkSize 건씩 나눠서 update/delete 한다.
+ * <p>
+ * chunk 하나가 트랜잭션 하나다. 다음 대상 id 를 고른 뒤 member row 만 select ... for update 로 잠그고, 잠근 row 에 조건을 다시 확인해서
+ * 그 id 들만 고친다. 조건에 team 경로가 있어도 team row 는 잠그지 않으므로 그 팀에 쓰는 다른 트랜잭션을 막지 않는다.
+ * 같은 트랜잭션에서 bulk_job_checkpoint 에 마지막 id 를 남긴다. 그래서 잠기는 row 는 chunk 크기를 넘지 않고,
+ * 중간에 죽어도 같은 jobId 로 다시 부르면 마지막으로 커밋된 chunk 다음부터 이어서 한다.
+ * 조건과 변경 내용의 fingerprint 를 checkpoint 에 남겨서 같은 jobId 로 다른 작업을 부르면 IllegalArgumentException 을 던진다.
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 chunk 마다 flush/clear 해서 낡은 엔티티가 남지 않게 한다.
+ * <p>
+ * 바뀐 회원 id 를 알고 있으므로 벌크 이벤트(전체 reconcile, view 전체 검사)를 내지 않고 같은 트랜잭션에서
+ * 그 회원의 member_search_view row 와 그 회원이 속한(속했던) 팀의 team_stats row 만 고친 뒤 팀 단위 변경 이벤트를 발행한다.
+ * <p>
+ * member.username 을 바꾸면 Member.setUsername 을 거치지 않으므로 같은 트랜잭션에서 username_lower 를 같은 규칙으로 다시 맞춘다.
+ * username_lower 를 직접 바꾸는 update 는 받지 않는다.
+ * <p>
+ * 호출하는 쪽에 트랜잭션이 없어야 chunk 마다 커밋된다. 트랜잭션 안에서 부르면 chunk 들이 그 트랜잭션에 참여한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+    private final DataChangeListener dataChangeListener;
+    private final TeamStatsListener teamStatsListener;
+    private final MemberSearchViewProperties searchViewProperties;
+    private final ApplicationEventPublisher publisher;
+
+    /**
+     * 예) update("age-plus-1", member.age.lt(28), update -&gt; update.set(member.age, member.age.add(1)))
+     */
+    public BulkJobResult update(String jobId, Predicate predicate, Consumer<JPAUpdateClause> assignments) {
+        RecordingUpdateClause recorded = new RecordingUpdateClause(em);
+        assignments.accept(recorded);
+        if (recorded.assignments.containsKey(member.usernameLower)) {
+            throw new IllegalArgumentException("username_lower is derived from username, set member.username instead");
+        }
+        boolean usernameChanged = recorded.assignments.containsKey(member.username);
+
+        String fingerprint = fingerprint("update", predicate, recorded.assignments);
+        return run(jobId, "update", fingerprint, predicate, ids -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            assignments.accept(update);
+            long rows = update.where(member.id.in(ids)).execute();
+            if (usernameChanged) {
+                syncUsernameLower(ids);
+            }
+            return rows;
+        });
+    }
+
+    public BulkJobResult delete(String jobId, Predicate predicate) {
+        return run(jobId, "delete", fingerprint("delete", predicate, Collections.emptyMap()), predicate, ids -> queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    private BulkJobResult run(String jobId, String operation, String fingerprint, Predicate predicate,
+                              ToLongFunction<List<Long>> dml) {
+        long start = System.nanoTime();
+        BulkJobResult result = null;
+        while (true) {
+            long chunkStart = System.nanoTime();
+            Progress progress = transactionTemplate.execute(status -> runChunk(jobId, operation, fingerprint, predicate, dml));
+            if (result == null) {
+                result = new BulkJobResult(jobId, operation, progress.fromId > 0 ? progress.fromId : null);
+            }
+            if (progress.completed) {
+                result.finish(true, progress.totalRows, (System.nanoTime() - start) / 1_000_000);
+                break;
+            }
+            result.addChunk(progress.rows, progress.totalRows);
+            log.debug("bulk {} {} chunk: {} rows, ids ({}, {}], {} ms", operation, jobId, progress.rows,
+                    progress.fromId, progress.lastId, (System.nanoTime() - chunkStart) / 1_000_000);
+            if (!throttle()) {
+                result.finish(false, progress.totalRows, (System.nanoTime() - start) / 1_000_000);
+                log.warn("bulk {} {} interrupted after id {}, call again with the same jobId to resume",
+                        operation, jobId, progress.lastId);
+                return result;
+            }
+        }
+        log.info("bulk {} {}: {} rows in {} chunks, {} ms ({} rows/s)", operation, jobId, result.getRows(),
+                result.getChunks(), result.getElapsedMillis(), String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    private Progress runChunk(String jobId, String operation, String fingerprint, Predicate predicate,
+                              ToLongFunction<List<Long>> dml) {
+        // 같은 jobId 를 동시에 돌리면 checkpoint 잠금에서 줄을 선다
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobId, LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint == null) {
+            checkpoint = new BulkJobCheckpoint(jobId, operation, fingerprint);
+            em.persist(checkpoint);
+        } else if (!checkpoint.getOperation().equals(operation)) {
+            throw new IllegalArgumentException("job " + jobId + " is a " + checkpoint.getOperation() + " job");
+        } else if (!fingerprint.equals(checkpoint.getFingerprint())) {
+            throw new IllegalArgumentException("job " + jobId + " was started with a different predicate or assignments");
+        }
+        long fromId = checkpoint.getLastId();
+        if (checkpoint.isCompleted()) {
+            return new Progress(true, fromId, fromId, 0, checkpoint.getRows());
+        }
+
+        List<Long> ids = lockNextChunk(predicate, fromId);
+
+        long rows = 0;
+        if (ids.isEmpty()) {
+            checkpoint.complete();
+        } else {
+            Set<Long> teamIds = teamIdsOf(ids);
+            rows = dataChangeListener.withoutBulkEvent(() -> dml.applyAsLong(ids));
+            teamIds.addAll(teamIdsOf(ids)); // update 로 팀이 바뀌었을 수 있다. delete 면 비어 있다
+            maintain(ids, teamIds);
+            checkpoint.advance(ids.get(ids.size() - 1), rows);
+        }
+        em.flush();
+        em.clear();
+        return new Progress(ids.isEmpty(), fromId, checkpoint.getLastId(), rows, checkpoint.getRows());
+    }
+
+    /**
+     * 조건이 team 경로를 쓰면 조건과 같이 잠글 때 조인한 team row 까지 잠긴다. 그래서 잠그지 않고 후보 id 를 고른 뒤
+     * member 만 id 로 잠그고, 그 사이 바뀌었을 수 있으니 잠긴 row 에 조건을 다시 건다.
+     */
+    private List<Long> lockNextChunk(Predicate predicate, long fromId) {
+        List<Long> candidates = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(predicate, member.id.gt(fromId))
+                .orderBy(member.id.asc())
+                .limit(properties.getChunkSize())
+                .fetch();
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.id.in(candidates))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch();
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.id.in(candidates), predicate)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    // 벌크 update 는 Member.setUsername 을 거치지 않으므로 username_lower 를 Member.lowerCase 로 다시 만든다
+    private void syncUsernameLower(List<Long> ids) {
+        List<Tuple> rows = queryFactory
+                .select(member.id, member.username)
+                .from(member)
+                .where(member.id.in(ids))
+                .fetch();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement =
+                         connection.prepareStatement("update member set username_lower = ? where member_id = ?")) {
+                for (Tuple row : rows) {
+                    statement.setString(1, Member.lowerCase(row.get(member.username)));
+                    statement.setLong(2, row.get(member.id));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private Set<Long> teamIdsOf(List<Long> ids) {
+        return new HashSet<>(queryFactory
+                .select(member.team.id)
+                .from(member)
+                .where(member.id.in(ids), member.team.isNotNull())
+                .fetch());
+    }
+
+    // 지워진 회원은 refresh 의 insert ... select 에 걸리지 않으므로 view 에서 빠진다
+    private void maintain(List<Long> ids, Set<Long> teamIds) {
+        em.unwrap(Session.class).doWork(connection -> {
+            if (searchViewProperties.isMaintained()) {
+                MemberSearchViewWriter.refresh(connection, ids);
+            }
+            teamStatsListener.recompute(connection, teamIds);
+        });
+        publisher.publishEvent(MemberDataChangedEvent.entity(MemberDataChangedEvent.Table.MEMBER, teamIds));
+    }
+
+    // 인터럽트되면 false. checkpoint 가 남아 있으니 같은 jobId 로 다시 부르면 이어서 한다
+    private boolean throttle() {
+        try {
+            Thread.sleep(properties.getThrottle().toMillis());
+            return !Thread.currentThread().isInterrupted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String fingerprint(String operation, Predicate predicate, Map<Path<?>, Object> assignments) {
+        String canonical = operation + "\n" + predicate + "\n" + assignments;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // 모든 JVM 에 있어야 하는 알고리즘
+        }
+    }
+
+    /**
+     * assignments 가 무엇을 바꾸는지만 모은다. 실행하지 않는다.
+     */
+    private static class RecordingUpdateClause extends JPAUpdateClause {
+
+        private final Map<Path<?>, Object> assignments = new LinkedHashMap<>();
+
+        RecordingUpdateClause(EntityManager em) {
+            super(em, member);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            assignments.put(path, value);
+            return this;
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            assignments.put(path, expression);
+            return this;
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            assignments.put(path, null);
+            return this;
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            for (int i = 0; i < paths.size(); i++) {
+                assignments.put(paths.get(i), values.get(i));
+            }
+            return this;
+        }
+    }
+
+    private static class Progress {
+
+        private final boolean completed;
+        private final long fromId;
+        private final long lastId;
+        private final long rows;
+        private final long totalRows;
+
+        private Progress(boolean completed, long fromId, long lastId, long rows, long totalRows) {
+            this.completed = completed;
+            this.fromId = fromId;
+            this.lastId = lastId;
+            this.rows = rows;
+            this.totalRows = totalRows;
+        }
+    }
+}
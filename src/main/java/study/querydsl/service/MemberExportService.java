@@ -0,0 +1,57 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 List 로 모으지 않고 한 줄에 하나씩 NDJSON 으로 바로 내보낸다.
+ * 결과가 몇 건이든 메모리 사용량은 fetch size 만큼으로 일정하다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+
+    @Transactional(readOnly = true)
+    public long exportNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long rows = 0;
+        try (Stream<MemberTeamDto> stream = memberJpaRepository.searchStream(condition, properties.getFetchSize());
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++rows % properties.getClearInterval() == 0) {
+                    generator.flush();
+                    em.clear();
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import study.querydsl.dto.InvalidRequestException;
+import study.querydsl.dto.MemberImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 요청 본문을 한 줄씩 읽어서 {@link MemberImportRow} 로 바꾼다. 전체를 메모리에 올리지 않는다.
+ * <ul>
+ *     <li>text/csv: username,age,teamName (첫 줄이 헤더면 건너뜀, 큰따옴표로 감싼 값 지원)</li>
+ *     <li>application/x-ndjson: 한 줄에 {"username":..,"age":..,"teamName":..}</li>
+ * </ul>
+ * 잘못된 줄은 줄 번호와 함께 InvalidRequestException 으로 알린다. 메시지에 줄 내용은 넣지 않는다.
+ */
+public class MemberImportReader implements Iterator<MemberImportRow> {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+
+    private MemberImportRow next;
+    private long lineNumber;
+
+    public MemberImportReader(BufferedReader reader, MediaType contentType, ObjectMapper objectMapper) {
+        if (TEXT_CSV.includes(contentType)) {
+            this.csv = true;
+        } else if (MediaType.APPLICATION_NDJSON.includes(contentType)) {
+            this.csv = false;
+        } else {
+            throw new InvalidRequestException("unsupported content type");
+        }
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public MemberImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MemberImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private MemberImportRow readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (csv && lineNumber == 1 && line.trim().toLowerCase().startsWith("username")) {
+                    continue; // header
+                }
+                MemberImportRow row = csv ? parseCsv(line) : parseJson(line);
+                if (row.getUsername() == null || row.getUsername().isBlank()) {
+                    throw invalid("username is required");
+                }
+                if (row.getAge() == null) {
+                    throw invalid("age is required");
+                }
+                return row;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MemberImportRow parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, MemberImportRow.class);
+        } catch (JsonProcessingException e) {
+            throw invalid("malformed JSON");
+        }
+    }
+
+    private MemberImportRow parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw invalid("expected username,age[,teamName] but got " + fields.size() + " fields");
+        }
+        try {
+            int age = Integer.parseInt(fields.get(1).trim());
+            String teamName = fields.size() == 3 ? fields.get(2).trim() : null;
+            return new MemberImportRow(fields.get(0).trim(), age, teamName);
+        } catch (NumberFormatException e) {
+            throw invalid("age is not a number");
+        }
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw invalid("unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private InvalidRequestException invalid(String reason) {
+        return new InvalidRequestException("line " + lineNumber + ": " + reason);
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.InvalidRequestException;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 대량 등록.
+ * <p>
+ * chunkSize 건씩 읽어서 트랜잭션 하나로 커밋한다. chunk 마다 아직 모르는 팀 이름만 모아 id 를 찾고, 없는 팀은 새로 만든다.
+ * 이름이 몇 개 안 되면 TeamRepository.findByName 으로 쿼리 캐시/2차 캐시에서 찾고, 많으면 IN 쿼리 한 번으로 찾는다. 회원은 batchSize 마다 flush/clear 해서 JDBC 배치로 나가고
+ * 영속성 컨텍스트는 batchSize 이상 커지지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberImportService {
+
+    // 이 이하면 이름마다 캐시된 조회를 한다. 같은 팀으로 반복해서 올리는 경우 DB 를 거치지 않는다
+    private static final int CACHED_TEAM_LOOKUPS = 16;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportProperties properties;
+
+    public MemberImportResult importMembers(Iterator<MemberImportRow> rows) {
+        long start = System.nanoTime();
+        MemberImportResult result = new MemberImportResult();
+        Map<String, Long> teamIds = new HashMap<>(); // chunk 를 넘어서 재사용
+
+        List<MemberImportRow> chunk = new ArrayList<>(properties.getChunkSize());
+        try {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == properties.getChunkSize()) {
+                    result.addChunk(importChunk(result.getChunks().size(), chunk, teamIds));
+                    chunk.clear();
+                }
+            }
+        } catch (InvalidRequestException e) {
+            // 앞선 chunk 는 이미 커밋되었으니 어디까지 들어갔는지 알려준다
+            throw new InvalidRequestException(e.getMessage() + " (" + result.getRows() + " rows already imported)", e);
+        }
+        if (!chunk.isEmpty()) {
+            result.addChunk(importChunk(result.getChunks().size(), chunk, teamIds));
+        }
+
+        result.finish((System.nanoTime() - start) / 1_000_000);
+        log.info("imported {} members ({} new teams) in {} ms ({} rows/s)", result.getRows(),
+                result.getCreatedTeams(), result.getElapsedMillis(), String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    private MemberImportResult.Chunk importChunk(int index, List<MemberImportRow> rows, Map<String, Long> teamIds) {
+        long start = System.nanoTime();
+
+        int createdTeams = transactionTemplate.execute(status -> {
+            int created = resolveTeams(rows, teamIds);
+
+            int pending = 0;
+            for (MemberImportRow row : rows) {
+                Member member = new Member(row.getUsername(), row.getAge());
+                if (hasText(row.getTeamName())) {
+                    member.setTeam(em.getReference(Team.class, teamIds.get(row.getTeamName())));
+                }
+                em.persist(member);
+
+                if (++pending == properties.getBatchSize()) {
+                    em.flush();
+                    em.clear();
+                    pending = 0;
+                }
+            }
+            em.flush();
+            em.clear();
+            return created;
+        });
+
+        MemberImportResult.Chunk result = new MemberImportResult.Chunk(
+                index, rows.size(), createdTeams, (System.nanoTime() - start) / 1_000_000);
+        log.debug("import chunk {}: {} rows, {} rows/s", index, result.getRows(), String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * @return 새로 만든 팀 수
+     */
+    private int resolveTeams(List<MemberImportRow> rows, Map<String, Long> teamIds) {
+        Set<String> unknown = new HashSet<>();
+        for (MemberImportRow row : rows) {
+            if (hasText(row.getTeamName()) && !teamIds.containsKey(row.getTeamName())) {
+                unknown.add(row.getTeamName());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return 0;
+        }
+
+        // 같은 이름의 팀이 여러 개면 가장 먼저 만들어진 팀으로
+        if (unknown.size() <= CACHED_TEAM_LOOKUPS) {
+            for (String name : new ArrayList<>(unknown)) {
+                List<Team> teams = teamRepository.findByName(name);
+                if (!teams.isEmpty()) {
+                    teamIds.put(name, teams.stream().mapToLong(Team::getId).min().getAsLong());
+                    unknown.remove(name);
+                }
+            }
+            return createTeams(unknown, teamIds);
+        }
+        List<Tuple> found = queryFactory
+                .select(team.name, team.id.min())
+                .from(team)
+                .where(team.name.in(unknown))
+                .groupBy(team.name)
+                .fetch();
+        for (Tuple tuple : found) {
+            teamIds.put(tuple.get(team.name), tuple.get(team.id.min()));
+            unknown.remove(tuple.get(team.name));
+        }
+        return createTeams(unknown, teamIds);
+    }
+
+    private int createTeams(Set<String> names, Map<String, Long> teamIds) {
+        for (String name : names) {
+            Team newTeam = new Team(name);
+            em.persist(newTeam);
+            teamIds.put(name, newTeam.getId());
+        }
+        return names.size();
+    }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.event.MemberSearchViewWriter;
+import study.querydsl.repository.MemberSearchViewProperties;
+import study.querydsl.repository.MemberSearchViewStatus;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * member_search_view 정합성 검사. member/team 과 비교해서 다른 row 를 고친다.
+ * checkInterval 마다 전체를 검사하고, 벌크 연산이 끝났으면 repairDelay 안에 고친 뒤 view 읽기를 다시 허용한다.
+ * 팀이 바뀌었으면 repairDelay 안에 그 팀 회원 row 의 팀 이름을 다시 맞춘다 (MemberSearchViewStatus 참고).
+ * <p>
+ * view 를 갱신하지 않는 설정이면 시작하지 않는다. 갱신을 켜고 기동하면 첫 검사가 꺼져 있던 동안의 변경을 채운다
+ * (비어 있으면 한 번에 backfill, 아니면 다른 row 만 고친다).
+ */
+@Slf4j
+@Component
+public class MemberSearchViewChecker {
+
+    private final EntityManager em;
+    private final TransactionTemplate transaction;
+    private final MemberSearchViewStatus status;
+    private final MemberSearchViewProperties properties;
+    private final Counter repairedRows;
+    private final ScheduledExecutorService scheduler;
+
+    public MemberSearchViewChecker(EntityManager em, PlatformTransactionManager transactionManager,
+                                   MemberSearchViewStatus status, MemberSearchViewProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.em = em;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.status = status;
+        this.properties = properties;
+        this.repairedRows = Counter.builder("member.search.view.repaired")
+                .description("member_search_view rows fixed by the consistency check")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-search-view-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isMaintained()) {
+            return;
+        }
+        long interval = properties.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int fixed = check();
+                if (fixed > 0) {
+                    log.warn("member_search_view was out of sync, {} rows fixed", fixed);
+                }
+            } catch (RuntimeException e) {
+                log.warn("member_search_view check failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        long repairDelay = properties.getRepairDelay().toMillis();
+        scheduler.scheduleWithFixedDelay(this::repairPending, 0, repairDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 고친 row 수
+     */
+    public int check() {
+        Integer fixed = transaction.execute(tx -> em.unwrap(Session.class).doReturningWork(MemberSearchViewWriter::repair));
+        repairedRows.increment(fixed);
+        return fixed;
+    }
+
+    // 스케줄러와 직접 호출이 겹치면 먼저 시작한 쪽이 끝날 때까지 기다린다
+    synchronized void repairPending() {
+        resyncChangedTeams();
+        int requests = status.takeCompleted();
+        if (requests == 0) {
+            return;
+        }
+        try {
+            check();
+            status.repaired(requests);
+        } catch (RuntimeException e) {
+            status.repairFailed(requests);
+            log.warn("member_search_view repair failed", e);
+        }
+    }
+
+    private void resyncChangedTeams() {
+        Set<Long> teamIds = status.takeChangedTeams();
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(tx -> em.unwrap(Session.class)
+                    .doWork(connection -> MemberSearchViewWriter.resyncTeamNames(connection, teamIds)));
+        } catch (RuntimeException e) {
+            status.teamsResyncFailed(teamIds);
+            log.warn("member_search_view team name resync failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
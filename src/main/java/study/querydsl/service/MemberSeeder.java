@@ -0,0 +1,193 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.DataChangeListener;
+import study.querydsl.event.MemberDataChangedEvent;
+import study.querydsl.event.MemberSearchViewWriter;
+import study.querydsl.event.TeamStatsListener;
+import study.querydsl.repository.MemberSearchViewProperties;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 테스트/부하 테스트용 데이터 생성기.
+ * <p>
+ * 회원은 chunkSize 건씩 별도 트랜잭션으로 넣고, 트랜잭션 안에서는 flushInterval 마다 flush/clear 해서
+ * JDBC 배치(hibernate.jdbc.batch_size)로 나가게 하고 영속성 컨텍스트가 커지지 않게 한다.
+ * id 는 pooled 시퀀스에서 받으므로 건마다 시퀀스를 조회하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberSeeder {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate transactionTemplate;
+    private final SeedProperties properties;
+    private final DataChangeListener dataChangeListener;
+    private final TeamStatsListener teamStatsListener;
+    private final MemberSearchViewProperties searchViewProperties;
+    private final ApplicationEventPublisher publisher;
+
+    /**
+     * @return 넣은 row 수 (팀 + 회원)
+     */
+    public long seed() {
+        long start = System.nanoTime();
+        long memberCount = (long) properties.getTeamCount() * properties.getMembersPerTeam();
+
+        long rows = properties.isStatelessSession() ? seedStateless(memberCount) : seedWithPersist(memberCount);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("seeded {} teams, {} members in {} s ({} rows/s)",
+                properties.getTeamCount(), memberCount, String.format("%.1f", seconds),
+                String.format("%.0f", rows / Math.max(seconds, 1e-9)));
+        return rows;
+    }
+
+    private long seedWithPersist(long memberCount) {
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < properties.getTeamCount(); i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        AgeGenerator ages = new AgeGenerator(properties);
+        for (long chunkStart = 0; chunkStart < memberCount; chunkStart += properties.getChunkSize()) {
+            long from = chunkStart;
+            long to = Math.min(memberCount, chunkStart + properties.getChunkSize());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                for (long i = from; i < to; i++) {
+                    Member member = new Member("member" + i, ages.next(i));
+                    member.setTeam(em.getReference(Team.class, teamIds.get((int) (i % teamIds.size()))));
+                    em.persist(member);
+
+                    if ((i - from + 1) % properties.getFlushInterval() == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+            });
+            log.debug("seeded members {} ~ {}", from, to - 1);
+        }
+        return teamIds.size() + memberCount;
+    }
+
+    /**
+     * 영속성 컨텍스트, dirty checking, 엔티티 이벤트를 모두 건너뛰는 StatelessSession 으로 넣는다.
+     * 이벤트가 없어서 team_stats / member_search_view 리스너가 돌지 않으므로 chunk 마다 같은 트랜잭션에서 직접 고치고,
+     * insert 가 벌크 변경으로 보고되지 않게 한 뒤 커밋되면 팀 단위 변경 이벤트를 한 번 발행한다 (MemberBulkService 와 같다).
+     */
+    private long seedStateless(long memberCount) {
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        AgeGenerator ages = new AgeGenerator(properties);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            List<Team> teams = new ArrayList<>();
+            Set<Long> teamIds = new HashSet<>();
+            inTransaction(session, () -> {
+                for (int i = 0; i < properties.getTeamCount(); i++) {
+                    Team team = new Team(teamName(i));
+                    session.insert(team);
+                    teams.add(team);
+                    teamIds.add(team.getId());
+                }
+                session.doWork(connection -> teamStatsListener.recompute(connection, teamIds));
+            });
+            publisher.publishEvent(MemberDataChangedEvent.entity(MemberDataChangedEvent.Table.TEAM, teamIds));
+
+            for (long chunkStart = 0; chunkStart < memberCount; chunkStart += properties.getChunkSize()) {
+                long from = chunkStart;
+                long to = Math.min(memberCount, chunkStart + properties.getChunkSize());
+                List<Member> members = new ArrayList<>((int) (to - from));
+                inTransaction(session, () -> {
+                    for (long i = from; i < to; i++) {
+                        Member member = new Member("member" + i, ages.next(i));
+                        member.setTeam(teams.get((int) (i % teams.size())));
+                        session.insert(member);
+                        members.add(member);
+                    }
+                    session.doWork(connection -> {
+                        if (searchViewProperties.isMaintained()) {
+                            MemberSearchViewWriter.refresh(connection,
+                                    members.stream().map(Member::getId).collect(Collectors.toList()));
+                        }
+                        teamStatsListener.addMembers(connection, members);
+                    });
+                });
+                publisher.publishEvent(MemberDataChangedEvent.entity(MemberDataChangedEvent.Table.MEMBER,
+                        members.stream().map(member -> member.getTeam().getId()).collect(Collectors.toSet())));
+                log.debug("seeded members {} ~ {}", from, to - 1);
+            }
+            return teams.size() + memberCount;
+        }
+    }
+
+    private void inTransaction(StatelessSession session, Runnable work) {
+        Transaction tx = session.beginTransaction();
+        try {
+            dataChangeListener.withoutBulkEvent(() -> {
+                work.run();
+                return null;
+            });
+            tx.commit();
+        } catch (RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    // 처음 26 개 팀은 teamA, teamB ... 그 뒤는 team26, team27 ...
+    private static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+
+    private static class AgeGenerator {
+
+        private final SeedProperties properties;
+        private final Random random;
+        private final int range;
+
+        AgeGenerator(SeedProperties properties) {
+            this.properties = properties;
+            this.random = new Random(properties.getSeed());
+            this.range = properties.getAgeMax() - properties.getAgeMin() + 1;
+        }
+
+        int next(long index) {
+            switch (properties.getAgeDistribution()) {
+                case UNIFORM:
+                    return properties.getAgeMin() + random.nextInt(range);
+                case NORMAL:
+                    double mean = (properties.getAgeMin() + properties.getAgeMax()) / 2.0;
+                    double stddev = (properties.getAgeMax() - properties.getAgeMin()) / 6.0;
+                    long age = Math.round(mean + random.nextGaussian() * stddev);
+                    return (int) Math.max(properties.getAgeMin(), Math.min(properties.getAgeMax(), age));
+                default:
+                    return properties.getAgeMin() + (int) (index % range);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.seed")
+public class SeedProperties {
+
+    public enum AgeDistribution {
+        SEQUENTIAL, // i 번째 회원은 ageMin + i % 범위 (예전 InitMember 와 같은 데이터)
+        UNIFORM,
+        NORMAL // 평균 (ageMin + ageMax) / 2, 표준편차 (ageMax - ageMin) / 6
+    }
+
+    private int teamCount = 2;
+    private int membersPerTeam = 50;
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private int ageMin = 0;
+    private int ageMax = 99;
+    private long seed = 42;
+
+    private int chunkSize = 10_000; // 트랜잭션 하나에 넣을 회원 수
+    private int flushInterval = 500; // hibernate.jdbc.batch_size 와 맞춘다
+    private boolean statelessSession = false;
+}
@@ -0,0 +1,22 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.repository.TeamRepository;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamService {
+
+    private final TeamRepository teamRepository;
+
+    // team.getMembers() 는 default_batch_fetch_size 덕분에 팀 수만큼이 아니라 IN 쿼리 한 번으로 채워진다
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        return teamRepository.findAll(pageable).map(TeamMembersDto::new);
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("member.team-stats")
+public class TeamStatsProperties {
+
+    private boolean reconcileEnabled = true;
+    // team_stats 전체를 member 집계와 비교해서 맞추는 주기
+    private Duration reconcileInterval = Duration.ofMinutes(10);
+    // 벌크 연산 뒤 reconcile 요청을 모아서 처리하는 주기
+    private Duration bulkReconcileDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,94 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.event.AfterCompletion;
+import study.querydsl.event.MemberDataChangedEvent;
+import study.querydsl.event.TeamStatsListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * team_stats 를 주기적으로 member 집계와 맞춘다.
+ * 벌크 연산은 어떤 row 가 바뀌었는지 알 수 없으므로 트랜잭션이 끝난 뒤 reconcile 을 요청하고,
+ * 여러 요청은 bulkReconcileDelay 마다 한 번으로 모아서 처리한다. TeamStatsListener 가 동시 갱신 충돌로 반영하지 못한
+ * 변경도 같이 처리한다. 기동할 때 ApplicationRunner 에서 한 번 맞추고, 주기 reconcile 은 reconcileInterval 뒤부터 돈다.
+ * 기동 reconcile 이 백그라운드 스레드가 아니라서 테스트 컨텍스트가 뜬 뒤의 쓰기와 겹치지 않는다.
+ */
+@Slf4j
+@Component
+public class TeamStatsReconciler implements ApplicationRunner {
+
+    private final TeamStatsService teamStatsService;
+    private final TeamStatsListener teamStatsListener;
+    private final TeamStatsProperties properties;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    public TeamStatsReconciler(TeamStatsService teamStatsService, TeamStatsListener teamStatsListener,
+                               TeamStatsProperties properties) {
+        this.teamStatsService = teamStatsService;
+        this.teamStatsListener = teamStatsListener;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "team-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isReconcileEnabled()) {
+            return;
+        }
+        long interval = properties.getReconcileInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.MILLISECONDS);
+        long bulkDelay = properties.getBulkReconcileDelay().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            // 두 요청을 모두 꺼내야 하므로 || 가 아니라 | 로 평가한다
+            if (requested.getAndSet(false) | teamStatsListener.takeReconcileRequest()) {
+                reconcile();
+            }
+        }, bulkDelay, bulkDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isReconcileEnabled()) {
+            reconcile();
+        }
+    }
+
+    // 벌크 statement 는 아직 실행 전이므로 커밋(또는 롤백) 뒤에 요청한다
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        if (event.isBulk() && !AfterCompletion.runOnce(this, () -> requested.set(true))) {
+            requested.set(true);
+        }
+    }
+
+    void reconcile() {
+        try {
+            int fixed = teamStatsService.reconcile();
+            if (fixed > 0) {
+                log.info("team_stats reconciled, {} rows fixed", fixed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("team_stats reconcile failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamStatsService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+
+    // member 를 집계하지 않고 team_stats 만 읽는다. 팀 수에만 비례한다
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(teamStats.teamId, teamStats.teamName, teamStats.memberCount,
+                        teamStats.ageSum, teamStats.minAge, teamStats.maxAge))
+                .from(teamStats)
+                .orderBy(teamStats.teamName.asc(), teamStats.teamId.asc())
+                .fetch();
+    }
+
+    /**
+     * member 를 팀별로 다시 집계해서 team_stats 와 다른 row 만 고친다.
+     * 집계하는 동안 다른 트랜잭션이 커밋한 변경은 덮어쓸 수 있고, 다음 reconcile 때 다시 맞춰진다.
+     *
+     * @return 고친 row 수
+     */
+    @Transactional
+    public int reconcile() {
+        Map<Long, TeamStats> current = queryFactory
+                .selectFrom(teamStats)
+                .fetch().stream()
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+
+        List<Tuple> actual = queryFactory
+                .select(team.id, team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .fetch();
+
+        int fixed = 0;
+        for (Tuple row : actual) {
+            Long teamId = row.get(team.id);
+            long memberCount = row.get(2, Number.class).longValue();
+            Number ageSum = row.get(3, Number.class); // SUM 은 Long 으로 오고, 회원이 없으면 null
+            Integer minAge = row.get(4, Integer.class);
+            Integer maxAge = row.get(5, Integer.class);
+
+            TeamStats stats = current.remove(teamId);
+            if (stats == null) {
+                em.persist(new TeamStats(teamId, row.get(team.name), memberCount,
+                        ageSum == null ? 0 : ageSum.longValue(), minAge, maxAge));
+                fixed++;
+            } else if (stats.update(row.get(team.name), memberCount,
+                    ageSum == null ? 0 : ageSum.longValue(), minAge, maxAge)) {
+                fixed++;
+            }
+        }
+        // 없어진 팀
+        for (TeamStats stats : current.values()) {
+            em.remove(stats);
+            fixed++;
+        }
+        return fixed;
+    }
+}
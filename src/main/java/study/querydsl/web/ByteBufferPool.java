@@ -0,0 +1,39 @@
+package study.querydsl.web;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 응답 인코딩용 heap ByteBuffer 풀. maxBufferSize 보다 큰 버퍼는 풀에 돌려놓지 않는다.
+ */
+public class ByteBufferPool {
+
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final int maxBufferSize;
+
+    public ByteBufferPool(int maxPooled, int maxBufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(maxPooled);
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    public ByteBuffer acquire(int minCapacity) {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null || buffer.capacity() < minCapacity) {
+            // 작은 버퍼는 버리고 필요한 크기로 새로 만든다. 2 의 거듭제곱으로 올려서 다음 요청도 쓸 수 있게 한다
+            buffer = ByteBuffer.allocate(Math.max(minCapacity, Integer.highestOneBit(Math.max(minCapacity - 1, 1)) << 1));
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() <= maxBufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    int pooled() {
+        return buffers.size();
+    }
+}
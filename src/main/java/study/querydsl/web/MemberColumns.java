@@ -0,0 +1,98 @@
+package study.querydsl.web;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * application/x-member-columns 한 페이지를 컬럼 배열로 담는다. {@link MemberColumnsDecoder} 가 만든다.
+ * <p>
+ * 형식 (big-endian)
+ * <pre>
+ * int    magic 'MCOL', byte version(1)
+ * long   totalElements, int page, int size   (List 응답이면 -1, -1, -1)
+ * int    n (행 수)
+ * long[n] memberId
+ * int[n]  age
+ * long[n] teamId          (팀 없음 = 0)
+ * int    d, d x (int len, UTF-8)  teamName 사전
+ * int[n]  teamName 사전 번호 (팀 없음 = -1)
+ * n x (int len, UTF-8)    username (null = len -1)
+ * </pre>
+ */
+public class MemberColumns {
+
+    public static final String MEDIA_TYPE = "application/x-member-columns";
+    static final int MAGIC = 0x4D434F4C; // "MCOL"
+    static final byte VERSION = 1;
+    static final long NO_TEAM = 0;
+
+    private final long totalElements;
+    private final int page;
+    private final int size;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final String[] teamNameDictionary;
+    private final int[] teamNameIndexes;
+    private final String[] usernames;
+
+    MemberColumns(long totalElements, int page, int size, long[] memberIds, int[] ages, long[] teamIds,
+                  String[] teamNameDictionary, int[] teamNameIndexes, String[] usernames) {
+        this.totalElements = totalElements;
+        this.page = page;
+        this.size = size;
+        this.memberIds = memberIds;
+        this.ages = ages;
+        this.teamIds = teamIds;
+        this.teamNameDictionary = teamNameDictionary;
+        this.teamNameIndexes = teamNameIndexes;
+        this.usernames = usernames;
+    }
+
+    public int rowCount() {
+        return memberIds.length;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long memberId(int row) {
+        return memberIds[row];
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    public Long teamId(int row) {
+        return teamIds[row] == NO_TEAM ? null : teamIds[row];
+    }
+
+    public String teamName(int row) {
+        int index = teamNameIndexes[row];
+        return index < 0 ? null : teamNameDictionary[index];
+    }
+
+    public String username(int row) {
+        return usernames[row];
+    }
+
+    public List<MemberTeamDto> toDtos() {
+        List<MemberTeamDto> result = new ArrayList<>(rowCount());
+        for (int i = 0; i < rowCount(); i++) {
+            result.add(new MemberTeamDto(memberId(i), username(i), age(i), teamId(i), teamName(i)));
+        }
+        return result;
+    }
+}
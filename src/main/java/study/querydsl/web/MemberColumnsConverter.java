@@ -0,0 +1,209 @@
+package study.querydsl.web;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accept: application/x-member-columns 이면 Page/List&lt;MemberTeamDto&gt; 를 {@link MemberColumns} 형식으로 쓴다.
+ * <p>
+ * 크기를 먼저 계산해서 풀에서 빌린 버퍼 하나에 조회 결과를 바로 쓰고(중간 byte[] 나 String 인코딩 없음),
+ * 그 버퍼를 응답 스트림에 한 번에 보낸다.
+ */
+public class MemberColumnsConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MemberColumns.MEDIA_TYPE);
+
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 4 + 4 + 4;
+    private static final int FIXED_BYTES_PER_ROW = 8 + 4 + 8 + 4; // memberId, age, teamId, teamName 번호
+
+    private final ByteBufferPool bufferPool;
+
+    public MemberColumnsConverter(ByteBufferPool bufferPool) {
+        super(MEDIA_TYPE);
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        // mediaType 이 null 이면 응답 가능한 형식을 모으는 단계다. */* 요청은 앞에 등록된 JSON 컨버터가 먼저 선택된다
+        if (type == null || (mediaType != null && !MEDIA_TYPE.isCompatibleWith(mediaType))) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve();
+        if (raw == null || !supports(raw)) {
+            return false;
+        }
+        return resolved.as(raw).getGeneric(0).resolve() == MemberTeamDto.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof Page) {
+            Page<MemberTeamDto> page = (Page<MemberTeamDto>) value;
+            write(page.getContent(), page.getTotalElements(), page.getNumber(), page.getSize(), outputMessage.getBody());
+        } else {
+            write((List<MemberTeamDto>) value, -1, -1, -1, outputMessage.getBody());
+        }
+    }
+
+    public void write(List<MemberTeamDto> rows, long totalElements, int page, int size, OutputStream out)
+            throws IOException {
+        int n = rows.size();
+
+        // teamName 사전과 전체 크기를 먼저 구한다
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] teamNameIndexes = new int[n];
+        int bytes = HEADER_BYTES + 4 + n * FIXED_BYTES_PER_ROW;
+        for (int i = 0; i < n; i++) {
+            MemberTeamDto row = rows.get(i);
+            String teamName = row.getTeamName();
+            if (teamName == null) {
+                teamNameIndexes[i] = -1;
+            } else {
+                Integer index = dictionary.get(teamName);
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put(teamName, index);
+                    bytes += Utf8.length(teamName);
+                }
+                teamNameIndexes[i] = index;
+            }
+            bytes += Utf8.length(row.getUsername());
+        }
+
+        ByteBuffer buffer = bufferPool.acquire(bytes);
+        try {
+            buffer.putInt(MemberColumns.MAGIC).put(MemberColumns.VERSION);
+            buffer.putLong(totalElements).putInt(page).putInt(size);
+            buffer.putInt(n);
+            for (MemberTeamDto row : rows) {
+                buffer.putLong(row.getMemberId());
+            }
+            for (MemberTeamDto row : rows) {
+                buffer.putInt(row.getAge());
+            }
+            for (MemberTeamDto row : rows) {
+                buffer.putLong(row.getTeamId() == null ? MemberColumns.NO_TEAM : row.getTeamId());
+            }
+            String[] names = new String[dictionary.size()];
+            dictionary.forEach((name, index) -> names[index] = name);
+            buffer.putInt(names.length);
+            for (String name : names) {
+                Utf8.put(buffer, name);
+            }
+            for (int index : teamNameIndexes) {
+                buffer.putInt(index);
+            }
+            for (MemberTeamDto row : rows) {
+                Utf8.put(buffer, row.getUsername());
+            }
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+
+    /**
+     * String -&gt; 길이 접두 UTF-8 을 중간 byte[] 없이 버퍼에 바로 쓴다. 짝이 없는 surrogate 는 '?' 로 쓴다.
+     */
+    static final class Utf8 {
+
+        private Utf8() {
+        }
+
+        // 길이 접두(4) 포함
+        static int length(String value) {
+            if (value == null) {
+                return 4;
+            }
+            int bytes = 4;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    bytes += 1;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+
+        static void put(ByteBuffer buffer, String value) {
+            if (value == null) {
+                buffer.putInt(-1);
+                return;
+            }
+            int lengthPosition = buffer.position();
+            buffer.putInt(0);
+            int start = buffer.position();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            buffer.putInt(lengthPosition, buffer.position() - start);
+        }
+    }
+}
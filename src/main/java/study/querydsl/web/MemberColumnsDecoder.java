@@ -0,0 +1,80 @@
+package study.querydsl.web;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * application/x-member-columns 응답을 읽는 클라이언트용 디코더. 이 클래스와 {@link MemberColumns} 만 있으면 된다.
+ * <pre>
+ * byte[] body = restTemplate.exchange(..., byte[].class).getBody(); // Accept: application/x-member-columns
+ * MemberColumns columns = MemberColumnsDecoder.decode(body);
+ * </pre>
+ */
+public final class MemberColumnsDecoder {
+
+    private MemberColumnsDecoder() {
+    }
+
+    public static MemberColumns decode(byte[] body) {
+        return decode(ByteBuffer.wrap(body));
+    }
+
+    public static MemberColumns decode(ByteBuffer buffer) {
+        if (buffer.getInt() != MemberColumns.MAGIC) {
+            throw new IllegalArgumentException("not an " + MemberColumns.MEDIA_TYPE + " body");
+        }
+        byte version = buffer.get();
+        if (version != MemberColumns.VERSION) {
+            throw new IllegalArgumentException("unsupported version: " + version);
+        }
+        long totalElements = buffer.getLong();
+        int page = buffer.getInt();
+        int size = buffer.getInt();
+        int n = buffer.getInt();
+
+        long[] memberIds = new long[n];
+        buffer.asLongBuffer().get(memberIds);
+        buffer.position(buffer.position() + n * Long.BYTES);
+
+        int[] ages = new int[n];
+        buffer.asIntBuffer().get(ages);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+
+        long[] teamIds = new long[n];
+        buffer.asLongBuffer().get(teamIds);
+        buffer.position(buffer.position() + n * Long.BYTES);
+
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer);
+        }
+        int[] teamNameIndexes = new int[n];
+        buffer.asIntBuffer().get(teamNameIndexes);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+
+        String[] usernames = new String[n];
+        for (int i = 0; i < n; i++) {
+            usernames[i] = readString(buffer);
+        }
+
+        return new MemberColumns(totalElements, page, size, memberIds, ages, teamIds,
+                dictionary, teamNameIndexes, usernames);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
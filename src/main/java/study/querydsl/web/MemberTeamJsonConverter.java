@@ -0,0 +1,149 @@
+package study.querydsl.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Page&lt;MemberTeamDto&gt;, List&lt;MemberTeamDto&gt; 전용 JSON 쓰기. 리플렉션 없이 고정된 필드 순서로 JsonGenerator 에 바로 쓴다.
+ * <p>
+ * Page 는 PageImpl 의 pageable, sort 같은 중복 필드 없이 다음만 쓴다.
+ * <pre>
+ * {"content":[{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"}],
+ *  "totalElements":100,"page":0,"size":20}
+ * </pre>
+ */
+public class MemberTeamJsonConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    // 필드 이름은 미리 인코딩해 둔다
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+
+    private final JsonFactory jsonFactory;
+
+    public MemberTeamJsonConverter(JsonFactory jsonFactory) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (type == null || !canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve();
+        if (raw == null || !(Page.class.isAssignableFrom(raw) || List.class.isAssignableFrom(raw))) {
+            return false;
+        }
+        Class<?> element = resolved.as(raw).getGeneric(0).resolve();
+        return element == MemberTeamDto.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        if (value instanceof Page) {
+            writePage((Page<MemberTeamDto>) value, body);
+        } else {
+            writeList((List<MemberTeamDto>) value, body);
+        }
+    }
+
+    // generator 를 닫으면 버퍼를 비우고 대상 스트림도 닫으므로, 응답 스트림은 닫히지 않게 감싼다 (닫는 건 컨테이너 몫)
+    public void writePage(Page<MemberTeamDto> page, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName(CONTENT);
+            writeRows(page.getContent(), generator);
+            generator.writeFieldName(TOTAL_ELEMENTS);
+            generator.writeNumber(page.getTotalElements());
+            generator.writeFieldName(PAGE);
+            generator.writeNumber(page.getNumber());
+            generator.writeFieldName(SIZE);
+            generator.writeNumber(page.getSize());
+            generator.writeEndObject();
+        }
+    }
+
+    public void writeList(List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            writeRows(rows, generator);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return jsonFactory.createGenerator(StreamUtils.nonClosing(out), JsonEncoding.UTF8);
+    }
+
+    private void writeRows(List<MemberTeamDto> rows, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (MemberTeamDto row : rows) {
+            generator.writeStartObject();
+            generator.writeFieldName(MEMBER_ID);
+            writeNumber(generator, row.getMemberId());
+            generator.writeFieldName(USERNAME);
+            generator.writeString(row.getUsername());
+            generator.writeFieldName(AGE);
+            generator.writeNumber(row.getAge());
+            generator.writeFieldName(TEAM_ID);
+            writeNumber(generator, row.getTeamId());
+            generator.writeFieldName(TEAM_NAME);
+            generator.writeString(row.getTeamName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only", inputMessage);
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import study.querydsl.config.ReplicaLagWindow;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberDataVersionTest {
+
+    MemberDataVersion dataVersion = new MemberDataVersion(ReplicaLagWindow.none());
+
+    @Test
+    @DisplayName("String.hashCode 가 같은 조건(Aa, BB)도 ETag 가 다르다")
+    void etagDoesNotCollideOnHashCode() {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        assertThat(etag(username("Aa"))).isNotEqualTo(etag(username("BB")));
+        assertThat(etag(username("Aa"))).isEqualTo(etag(username("Aa")));
+    }
+
+    @Test
+    @DisplayName("값에 구분자가 들어 있어도 다른 조건과 같은 키가 되지 않는다")
+    void canonicalKeyIsUnambiguous() {
+        MemberSearchCondition a = username("x;1:y");
+        MemberSearchCondition b = username("x");
+        b.setUsernamePrefix("y");
+
+        assertThat(MemberDataVersion.canonicalKey(a, null, MediaType.APPLICATION_JSON))
+                .isNotEqualTo(MemberDataVersion.canonicalKey(b, null, MediaType.APPLICATION_JSON));
+        assertThat(dataVersion.etag(a, PageRequest.of(0, 10), MediaType.APPLICATION_JSON))
+                .isNotEqualTo(dataVersion.etag(a, PageRequest.of(1, 10), MediaType.APPLICATION_JSON));
+    }
+
+    private String etag(MemberSearchCondition condition) {
+        return dataVersion.etag(condition, null, MediaType.APPLICATION_JSON);
+    }
+
+    private static MemberSearchCondition username(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+}
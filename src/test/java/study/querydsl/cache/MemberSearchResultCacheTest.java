@@ -0,0 +1,141 @@
+package study.querydsl.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.config.ReplicaLagWindow;
+import study.querydsl.config.ReplicaProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.event.MemberDataChangedEvent;
+import study.querydsl.event.MemberDataChangedEvent.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchResultCacheTest {
+
+    static final long TEAM_A = 1L;
+    static final long TEAM_B = 2L;
+
+    MemberSearchResultCache cache;
+    AtomicInteger queries;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MemberSearchResultCache(new ResultCacheProperties(), ReplicaLagWindow.none(),
+                new SimpleMeterRegistry());
+        queries = new AtomicInteger();
+    }
+
+    @Test
+    void invalidatesOnlyTheChangedTeam() {
+        MemberSearchCondition teamA = teamName("teamA");
+        MemberSearchCondition teamB = teamName("teamB");
+        MemberSearchCondition all = new MemberSearchCondition();
+
+        search(teamA, rows(TEAM_A, "teamA"));
+        search(teamB, rows(TEAM_B, "teamB"));
+        search(all, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(3);
+
+        cache.onDataChanged(MemberDataChangedEvent.entity(Table.MEMBER, Set.of(TEAM_B)));
+
+        search(teamA, rows(TEAM_A, "teamA")); // 그대로
+        assertThat(queries.get()).isEqualTo(3);
+        search(teamB, rows(TEAM_B, "teamB"));
+        search(all, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(5);
+    }
+
+    @Test
+    void unknownTeamInvalidatesTeamFilteredEntries() {
+        MemberSearchCondition teamA = teamName("teamA");
+        search(teamA, rows(TEAM_A, "teamA"));
+
+        cache.onDataChanged(MemberDataChangedEvent.entity(Table.MEMBER, Set.of(99L)));
+
+        search(teamA, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkInvalidatesEverything() {
+        MemberSearchCondition teamA = teamName("teamA");
+        search(teamA, rows(TEAM_A, "teamA"));
+
+        cache.onDataChanged(MemberDataChangedEvent.bulk(Table.MEMBER));
+
+        search(teamA, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void changeDuringLoadIsNotServed() {
+        MemberSearchCondition teamA = teamName("teamA");
+        search(teamA, () -> {
+            cache.onDataChanged(MemberDataChangedEvent.bulk(Table.MEMBER));
+            return rows(TEAM_A, "teamA").get();
+        });
+
+        search(teamA, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void laggingReplicaFillIsDroppedAfterLagWindow() {
+        List<Runnable> delayed = new ArrayList<>();
+        ReplicaProperties replica = new ReplicaProperties();
+        replica.setEnabled(true);
+        cache = new MemberSearchResultCache(new ResultCacheProperties(), new ReplicaLagWindow(replica) {
+            @Override
+            protected void schedule(Runnable action, long delayMillis) {
+                delayed.add(action);
+            }
+        }, new SimpleMeterRegistry());
+        MemberSearchCondition teamA = teamName("teamA");
+        search(teamA, rows(TEAM_A, "teamA"));
+
+        // 트랜잭션 밖 변경: 바로 무효화되고, 지연 시간 뒤 무효화가 예약된다
+        cache.onDataChanged(MemberDataChangedEvent.bulk(Table.MEMBER));
+        assertThat(delayed).hasSize(1);
+        // 그 사이 아직 복제되지 않은 replica 에서 예전 값으로 채운다
+        search(teamA, rows(TEAM_A, "teamA"));
+        search(teamA, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(2);
+
+        delayed.forEach(Runnable::run);
+        search(teamA, rows(TEAM_A, "teamA"));
+        assertThat(queries.get()).isEqualTo(3);
+    }
+
+    @Test
+    void cachedRowsAreUnmodifiable() {
+        List<MemberTeamDto> rows = cache.get("search", teamName("teamA"), null,
+                () -> new ArrayList<>(rows(TEAM_A, "teamA").get()));
+
+        assertThat(rows).isUnmodifiable();
+    }
+
+    private void search(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> rows) {
+        cache.get("search", condition, null, () -> {
+            queries.incrementAndGet();
+            return rows.get();
+        });
+    }
+
+    private static Supplier<List<MemberTeamDto>> rows(long teamId, String teamName) {
+        return () -> List.of(new MemberTeamDto(1L, "member1", 10, teamId, teamName));
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인메모리 H2 두 개를 primary, replica 로 두고 어느 쪽에서 읽는지 확인한다.
+ */
+class ReplicationRoutingDataSourceTest {
+
+    DataSource primary;
+    DataSource replica;
+    ReplicaProperties properties;
+    ReplicaLagMonitor monitor;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        new JdbcTemplate(replica).execute(
+                "create table replication_heartbeat (id int primary key, beat bigint not null)");
+
+        properties = new ReplicaProperties();
+        properties.setMaxLag(Duration.ofSeconds(5));
+        monitor = new ReplicaLagMonitor(primary, replica, properties);
+        new JdbcTemplate(primary).execute(
+                "create table if not exists replication_heartbeat (id int primary key, beat bigint not null)");
+
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicationRoutingDataSource(primary, replica, monitor));
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+        new JdbcTemplate(primary).execute("shutdown");
+        new JdbcTemplate(replica).execute("shutdown");
+    }
+
+    @Test
+    void readOnlyGoesToReplicaWhenCaughtUp() {
+        replicate(System.currentTimeMillis());
+        monitor.check();
+
+        assertThat(monitor.isReplicaUsable()).isTrue();
+        assertThat(readOnly.execute(status -> whereAmI())).isEqualTo("replica");
+        assertThat(readWrite.execute(status -> whereAmI())).isEqualTo("primary");
+        assertThat(whereAmI()).isEqualTo("primary"); // 트랜잭션 밖
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replicate(System.currentTimeMillis() - Duration.ofMinutes(1).toMillis());
+        monitor.check();
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(monitor.getLagMillis()).isGreaterThanOrEqualTo(Duration.ofMinutes(1).toMillis());
+        assertThat(readOnly.execute(status -> whereAmI())).isEqualTo("primary");
+    }
+
+    @Test
+    void unknownLagFallsBackToPrimary() {
+        monitor.check(); // replica 에 heartbeat 가 아직 없다
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(readOnly.execute(status -> whereAmI())).isEqualTo("primary");
+    }
+
+    private String whereAmI() {
+        return jdbcTemplate.queryForObject("select name from marker", String.class);
+    }
+
+    // 복제를 흉내 낸다
+    private void replicate(long beat) {
+        new JdbcTemplate(replica).update("merge into replication_heartbeat (id, beat) key (id) values (1, ?)", beat);
+    }
+
+    private static DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-routing;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table marker (name varchar(20))");
+        jdbcTemplate.update("insert into marker values (?)", name);
+        return dataSource;
+    }
+}
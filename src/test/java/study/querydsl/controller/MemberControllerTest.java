@@ -0,0 +1,168 @@
+package study.querydsl.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.web.MemberColumns;
+import study.querydsl.web.MemberColumnsConverter;
+import study.querydsl.web.MemberColumnsDecoder;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+    }
+
+    @Test
+    public void notModifiedWithoutQuery() throws Exception {
+        String etag = mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // 조건이나 페이지가 다르면 다른 ETag
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "20")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void etagDependsOnRepresentation() throws Exception {
+        String jsonETag = mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // JSON 의 ETag 로 columns 를 요청하면 304 가 아니라 columns 본문을 받는다
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA")
+                        .accept(MemberColumnsConverter.MEDIA_TYPE)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberColumnsConverter.MEDIA_TYPE));
+    }
+
+    @Test
+    public void bulkUpdateChangesETag() throws Exception {
+        String etag = mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute();
+
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void sparseFields() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA").param("fields", "username,age"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("member1"))
+                .andExpect(jsonPath("$[0].age").value(10))
+                .andExpect(jsonPath("$[0].teamName").doesNotExist())
+                .andExpect(jsonPath("$[0].memberId").doesNotExist());
+
+        mockMvc.perform(get("/v3/members").param("fields", "teamId,teamName").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$.content[0].username").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/v1/members").param("fields", "password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void invalidCursor() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("invalid cursor"));
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void offsetBeyondIntRange() throws Exception {
+        mockMvc.perform(get("/v2/members").param("page", String.valueOf(Integer.MAX_VALUE)).param("size", "100"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v3/members").param("page", String.valueOf(Integer.MAX_VALUE)).param("size", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void leanPageEnvelope() throws Exception {
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("member1"))
+                .andExpect(jsonPath("$.content[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    @Test
+    public void columnsFormatByContentNegotiation() throws Exception {
+        byte[] body = mockMvc.perform(get("/v2/members").param("teamName", "teamA")
+                        .accept(MemberColumnsConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberColumnsConverter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MemberColumns columns = MemberColumnsDecoder.decode(body);
+        assertThat(columns.getTotalElements()).isEqualTo(2);
+        assertThat(columns.toDtos()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(columns.teamName(0)).isEqualTo("teamA");
+
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
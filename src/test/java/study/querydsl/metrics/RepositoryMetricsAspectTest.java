@@ -0,0 +1,63 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordsLatencyRowsAndStatementsPerShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        memberRepository.search(condition);
+
+        Timer timer = registry.find("member.method")
+                .tags("class", "MemberRepositoryImpl", "method", "search", "shape", "teamName+ageGoe")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+
+        DistributionSummary rows = registry.find("member.method.rows")
+                .tags("method", "search", "shape", "teamName+ageGoe")
+                .summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.max()).isEqualTo(1);
+
+        DistributionSummary statements = registry.find("member.method.statements")
+                .tags("method", "search", "shape", "teamName+ageGoe")
+                .summary();
+        assertThat(statements).isNotNull();
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.RequestStatistics.Kind;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RequestStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void projectionDoesNotLoadEntities() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        RequestStatistics.start();
+        memberRepository.search(new MemberSearchCondition());
+        RequestStatistics projection = RequestStatistics.stop();
+
+        RequestStatistics.start();
+        memberJpaRepository.findAll_Querdsl();
+        RequestStatistics entities = RequestStatistics.stop();
+
+        assertThat(projection.get(Kind.QUERY)).isEqualTo(1);
+        assertThat(projection.get(Kind.ENTITY_LOAD)).isZero();
+        assertThat(entities.get(Kind.ENTITY_LOAD)).isEqualTo(5);
+    }
+
+    @Test
+    public void rollingWindows() {
+        RequestStatisticsProperties properties = new RequestStatisticsProperties();
+        properties.setBucket(Duration.ofMinutes(1));
+        properties.setWindows(List.of(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+        AtomicLong now = new AtomicLong(0);
+        RequestStatisticsWindows windows = new RequestStatisticsWindows(properties, now::get);
+
+        windows.record("GET /v3/members", flushes(1));
+        now.set(Duration.ofMinutes(2).toMillis());
+        windows.record("GET /v3/members", flushes(2));
+
+        Map<String, RequestStatisticsWindows.Snapshot> snapshot = windows.snapshot().get("GET /v3/members");
+        assertThat(snapshot.get("PT1M").getRequests()).isEqualTo(1);
+        assertThat(snapshot.get("PT1M").get(Kind.FLUSH)).isEqualTo(2);
+        assertThat(snapshot.get("PT5M").getRequests()).isEqualTo(2);
+        assertThat(snapshot.get("PT5M").getPerRequest().get("flushes")).isEqualTo(1.5);
+
+        now.set(Duration.ofMinutes(10).toMillis()); // 창 밖으로 밀려난다
+        assertThat(windows.snapshot().get("GET /v3/members").get("PT5M").getRequests()).isZero();
+    }
+
+    private RequestStatistics flushes(int count) {
+        RequestStatistics statistics = new RequestStatistics();
+        for (int i = 0; i < count; i++) {
+            statistics.add(single(Kind.FLUSH));
+        }
+        return statistics;
+    }
+
+    private RequestStatistics single(Kind kind) {
+        RequestStatistics.start();
+        RequestStatistics.increment(kind);
+        return RequestStatistics.stop();
+    }
+}
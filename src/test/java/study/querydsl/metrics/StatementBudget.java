@@ -0,0 +1,24 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문(@BeforeEach 제외)이 실행하는 JDBC statement 수를 제한한다.
+ * 예산을 넘거나 N+1 패턴이 보이면 테스트가 실패한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    long value();
+
+    boolean allowNPlusOne() default false;
+
+    int repeatThreshold() default 5;
+}
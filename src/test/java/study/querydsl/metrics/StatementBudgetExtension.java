@@ -0,0 +1,27 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        StatementBudget budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class);
+        StatementCollector.start(budget.repeatThreshold());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementReport report = StatementCollector.stop();
+        StatementBudget budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class);
+
+        if (report.getCount() > budget.value()) {
+            throw new AssertionError("statement budget " + budget.value() + " exceeded: " + report.summary());
+        }
+        if (!budget.allowNPlusOne() && !report.getNPlusOneSuspects().isEmpty()) {
+            throw new AssertionError("N+1 detected: " + report.summary());
+        }
+    }
+}
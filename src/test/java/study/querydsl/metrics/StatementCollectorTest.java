@@ -0,0 +1,75 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class StatementCollectorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    @DisplayName("같은 SQL 을 값만 바꿔 반복하면 N+1, 값까지 같으면 중복으로 잡는다")
+    public void detectNPlusOneAndDuplicates() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Member member = new Member("member" + i, i, teamA);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        StatementCollector.start(5);
+        for (Long id : ids) {
+            findUsername(id);
+        }
+        findUsername(ids.get(0));
+        StatementReport report = StatementCollector.stop();
+
+        assertThat(report.getCount()).isEqualTo(7);
+        assertThat(report.getNPlusOneSuspects()).hasSize(1);
+        assertThat(report.getNPlusOneSuspects().get(0).getCount()).isEqualTo(7);
+        assertThat(report.getDuplicates()).hasSize(1);
+    }
+
+    @Test
+    @StatementBudget(1)
+    public void searchIsSingleStatement() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberRepository.search(condition);
+    }
+
+    @Test
+    public void normalizeInList() {
+        assertThat(StatementCollector.normalize("select *  from team\n where id in (?, ?,?)"))
+                .isEqualTo("select * from team where id in (?...)");
+    }
+
+    private String findUsername(Long id) {
+        return em.createQuery("select m.username from Member m where m.id = :id", String.class)
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+}
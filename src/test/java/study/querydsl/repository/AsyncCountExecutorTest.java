@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count 는 다른 스레드의 트랜잭션에서 돌아서 테스트 트랜잭션의 데이터를 볼 수 없다. 그래서 @Transactional 없이 커밋하고 지운다.
+ */
+@SpringBootTest(properties = {"member.async-count.enabled=true", "member.async-count.timeout=200ms"})
+class AsyncCountExecutorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    AsyncCountExecutor asyncCount;
+
+    Team team;
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        team = teamRepository.save(new Team("async-" + UUID.randomUUID()));
+        for (int i = 0; i < 3; i++) {
+            members.add(memberRepository.save(new Member("member" + i, 10 + i, team)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAll(members);
+        teamRepository.delete(team);
+    }
+
+    @Test
+    @DisplayName("커밋된 데이터의 전체 건수를 다른 스레드에서 센다")
+    public void countsInParallel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(team.getName());
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("timeout 안에 끝나지 않은 count 는 취소하고 fallback 으로 센다")
+    public void fallsBackAfterTimeout() {
+        CompletableFuture<Long> stalled = new CompletableFuture<>();
+
+        assertThat(asyncCount.await(stalled, () -> 42L)).isEqualTo(42L);
+        assertThat(stalled.isCancelled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("count 스레드 수는 커넥션 풀의 절반을 넘지 않는다")
+    public void poolSizeBoundedByConnections() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(6);
+
+        assertThat(AsyncCountExecutor.poolSize(8, dataSource)).isEqualTo(3);
+        assertThat(AsyncCountExecutor.poolSize(2, dataSource)).isEqualTo(2);
+        dataSource.setMaximumPoolSize(1);
+        assertThat(AsyncCountExecutor.poolSize(8, dataSource)).isEqualTo(1);
+    }
+}
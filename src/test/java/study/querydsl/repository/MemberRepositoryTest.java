@@ -7,14 +7,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.dto.CursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementCollector;
+import study.querydsl.metrics.StatementReport;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -27,6 +32,12 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberCountCache countCache;
+
+    @Autowired
+    MemberQueryCache queryCache;
+
 
     @Test
     public void basicTest() {
@@ -104,6 +115,175 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("쓰기 트랜잭션 안에서는 count 캐시를 거치지 않아서 자기 변경(벌크 포함)이 바로 보인다")
+    public void countCacheBypassedInReadWriteTransaction() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(1, 2);
+
+        long requests = countCache.stats().requestCount();
+        assertThat(memberRepository.searchPageSimple(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        assertThat(countCache.stats().requestCount()).isEqualTo(requests);
+        assertThat(countCache.contains(condition)).isFalse();
+
+        em.persist(new Member("member5", 50, teamA));
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(5);
+
+        em.createQuery("delete from Member m where m.age > 30").executeUpdate();
+
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("조건 모양이 같으면 직렬화된 쿼리를 재사용")
+    public void queryCacheReusesShape() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+
+        MemberSearchCondition conditionA = new MemberSearchCondition();
+        conditionA.setTeamName("teamA");
+        assertThat(memberRepository.search(conditionA)).extracting("username").containsExactly("member1");
+        int cached = queryCache.size();
+
+        MemberSearchCondition conditionB = new MemberSearchCondition();
+        conditionB.setTeamName("teamB");
+        assertThat(memberRepository.search(conditionB)).extracting("username").containsExactly("member2");
+        assertThat(queryCache.size()).isEqualTo(cached);
+
+        MemberSearchCondition conditionC = new MemberSearchCondition();
+        conditionC.setTeamName("teamB");
+        conditionC.setAgeGoe(30);
+        assertThat(memberRepository.search(conditionC)).isEmpty();
+        assertThat(queryCache.size()).isEqualTo(cached + 1);
+    }
+
+    @Test
+    @DisplayName("cursor 로 keyset 페이징")
+    public void searchAfter() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorResult<MemberTeamDto> first = memberRepository.searchAfter(condition, null, 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorResult<MemberTeamDto> second = memberRepository.searchAfter(condition, first.getNextCursor(), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("usernamePrefix + ignoreCase 는 소문자 컬럼으로 찾고, username 을 바꾸면 같이 바뀐다")
+    public void usernamePrefixIgnoreCase() {
+        em.persist(new Member("KimYoung", 10));
+        em.persist(new Member("kimchi", 20));
+        Member lee = new Member("Lee", 30);
+        em.persist(lee);
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("KIM");
+        condition.setIgnoreCase(true);
+        assertThat(memberRepository.search(condition))
+                .extracting("username")
+                .containsExactlyInAnyOrder("KimYoung", "kimchi");
+
+        condition.setIgnoreCase(false);
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        condition.setUsernamePrefix("Kim");
+        assertThat(memberRepository.search(condition))
+                .extracting("username")
+                .containsExactly("KimYoung");
+
+        lee.setUsername("KIMURA");
+        em.flush();
+        condition.setUsernamePrefix(null);
+        condition.setUsername("kimura");
+        condition.setIgnoreCase(true);
+        assertThat(memberRepository.search(condition))
+                .extracting("username")
+                .containsExactly("KIMURA");
+    }
+
+    @Test
+    @DisplayName("prefix 가 전부 '\\uFFFF' 면 상한 없이 하한만 건다")
+    public void usernamePrefixWithoutUpperBound() {
+        assertThat(MemberSearchShape.prefixUpperBound("k\uFFFF")).isEqualTo("l");
+        assertThat(MemberSearchShape.prefixUpperBound("\uFFFF\uFFFF")).isNull();
+
+        em.persist(new Member("\uFFFF\uFFFFmax", 10));
+        em.persist(new Member("\uFFFFmax", 20));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("\uFFFF\uFFFF");
+        assertThat(MemberSearchShape.of(condition).bind(condition)).doesNotContainKey(MemberSearchShape.USERNAME_PREFIX_TO);
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("\uFFFF\uFFFFmax");
+        assertThat(memberRepository.searchAfter(condition, null, 10).getContent())
+                .extracting("username")
+                .containsExactly("\uFFFF\uFFFFmax");
+    }
+
+    @Test
+    @DisplayName("team 조인을 빼도 팀 없는 회원까지 같은 결과")
+    public void joinEliminationKeepsResults() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("loner", 30));
+
+        em.flush();
+
+        MemberSearchCondition ageOnly = new MemberSearchCondition();
+        ageOnly.setAgeGoe(15);
+        StatementCollector.start(Integer.MAX_VALUE);
+        assertThat(memberRepository.searchPageSimple(ageOnly, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+        // 조인 없이 member 만 센다
+        assertThat(countSql(StatementCollector.stop())).doesNotContain("join").doesNotContain(" team ");
+        assertThat(memberRepository.search(ageOnly)).extracting("teamName").containsExactlyInAnyOrder("teamA", null);
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        StatementCollector.start(Integer.MAX_VALUE);
+        assertThat(memberRepository.searchPageSimple(byTeam, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+        assertThat(countSql(StatementCollector.stop())).contains("inner join team");
+        assertThat(memberRepository.search(byTeam)).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    private String countSql(StatementReport report) {
+        List<String> counts = report.getStatements().stream()
+                .map(StatementReport.SqlStats::getSql)
+                .filter(sql -> sql.startsWith("select count("))
+                .collect(Collectors.toList());
+        assertThat(counts).hasSize(1);
+        return counts.get(0);
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         QMember member = QMember.member;
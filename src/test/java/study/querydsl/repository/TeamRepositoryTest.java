@@ -0,0 +1,55 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 팀을 쓴 트랜잭션 안에서는 team 의 쿼리 캐시가 무효화된 상태라서 커밋된 데이터로 확인한다.
+ */
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Team team;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        team = teamRepository.save(new Team("cached-" + UUID.randomUUID()));
+        // 팀 변경과 같은 시각에 캐시된 쿼리 결과는 낡은 것으로 보므로 시각을 넘긴다
+        Thread.sleep(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        teamRepository.delete(team);
+    }
+
+    @Test
+    public void findByNameHitsQueryAndEntityCache() {
+        assertThat(teamRepository.findByName(team.getName())).extracting("id").containsExactly(team.getId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(teamRepository.findByName(team.getName())).extracting("id").containsExactly(team.getId());
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("study.querydsl.entity.Team").getHitCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,262 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementCollector;
+import study.querydsl.metrics.StatementReport;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * chunk 마다 커밋되는지 보려면 테스트 트랜잭션이 없어야 한다. 그래서 만든 데이터는 이름으로 구분해서 직접 지운다.
+ */
+@SpringBootTest
+class MemberBulkServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    BulkProperties properties;
+
+    private int chunkSize;
+    private Duration throttle;
+    private String suffix;
+    private String bulkTeamName;
+    private Long bulkTeamId;
+    private Long outsiderId;
+    private final List<String> jobIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        chunkSize = properties.getChunkSize();
+        throttle = properties.getThrottle();
+        properties.setChunkSize(2);
+        properties.setThrottle(Duration.ZERO);
+
+        suffix = UUID.randomUUID().toString();
+        bulkTeamName = "bulkTeam-" + suffix;
+        transactionTemplate.executeWithoutResult(status -> {
+            Team bulkTeam = new Team(bulkTeamName);
+            Team teamB = new Team("teamB-" + suffix);
+            em.persist(bulkTeam);
+            em.persist(teamB);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("member" + i, i * 10, bulkTeam));
+            }
+            Member outsider = new Member("outsider", 10, teamB);
+            em.persist(outsider);
+            em.flush();
+            bulkTeamId = bulkTeam.getId();
+            outsiderId = outsider.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.setChunkSize(chunkSize);
+        properties.setThrottle(throttle);
+        transactionTemplate.executeWithoutResult(status -> {
+            // 벌크 DML 에는 조인을 쓸 수 없으므로 팀 id 로 지운다
+            queryFactory.delete(member)
+                    .where(member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.endsWith(suffix))))
+                    .execute();
+            queryFactory.delete(team).where(team.name.endsWith(suffix)).execute();
+            if (!jobIds.isEmpty()) {
+                queryFactory.delete(bulkJobCheckpoint).where(bulkJobCheckpoint.jobId.in(jobIds)).execute();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("chunk 가 실패하면 그 chunk 만 롤백되고, 같은 jobId 로 다시 부르면 커밋된 checkpoint 다음부터 한다")
+    public void resumeAfterFailedChunk() {
+        String jobId = jobId("age-plus-one");
+        AtomicInteger chunks = new AtomicInteger();
+        assertThatThrownBy(() -> memberBulkService.update(jobId, member.team.name.eq(bulkTeamName), update -> {
+            if (chunks.incrementAndGet() == 2) {
+                throw new IllegalStateException("chunk 2 failed");
+            }
+            update.set(member.age, member.age.add(1));
+        })).isInstanceOf(IllegalStateException.class);
+
+        // 첫 chunk 와 그 checkpoint 는 커밋되었고 두 번째 chunk 는 흔적이 없다
+        assertThat(ages()).containsExactlyInAnyOrder(11, 21, 30, 40, 50);
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobId);
+        assertThat(checkpoint.getRows()).isEqualTo(2);
+        assertThat(checkpoint.getChunks()).isEqualTo(1);
+        assertThat(checkpoint.isCompleted()).isFalse();
+
+        BulkJobResult resumed = memberBulkService.update(jobId, member.team.name.eq(bulkTeamName),
+                update -> update.set(member.age, member.age.add(1)));
+        assertThat(resumed.isCompleted()).isTrue();
+        assertThat(resumed.getResumedAfterId()).isEqualTo(checkpoint.getLastId());
+        assertThat(resumed.getRows()).isEqualTo(3);
+        assertThat(resumed.getTotalRows()).isEqualTo(5);
+
+        // 한 번씩만 더해졌고, view 와 team_stats 도 chunk 마다 같이 고쳐졌다
+        assertThat(ages()).containsExactlyInAnyOrder(11, 21, 31, 41, 51);
+        assertThat(viewAges()).containsExactlyInAnyOrder(11, 21, 31, 41, 51);
+        TeamStatsDto stats = stats();
+        assertThat(stats.getAverageAge()).isEqualTo(31.0);
+        assertThat(stats.getMaxAge()).isEqualTo(51);
+        assertThat(em.find(Member.class, outsiderId).getAge()).isEqualTo(10);
+
+        // 끝난 작업은 다시 부르면 아무것도 하지 않는다
+        assertThat(memberBulkService.update(jobId, member.team.name.eq(bulkTeamName),
+                update -> update.set(member.age, member.age.add(1))).getRows()).isZero();
+    }
+
+    @Test
+    @DisplayName("중간에 멈춘 작업은 같은 jobId 로 다시 부르면 남은 chunk 만 처리한다")
+    public void resumeAfterInterrupt() {
+        String jobId = jobId("age-plus-one");
+        // 첫 chunk 를 커밋한 뒤 쉬는 동안 인터럽트된 것처럼 멈춘다
+        Thread.currentThread().interrupt();
+        BulkJobResult first = memberBulkService.update(jobId, member.team.name.eq(bulkTeamName),
+                update -> update.set(member.age, member.age.add(1)));
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(first.isCompleted()).isFalse();
+        assertThat(first.getRows()).isEqualTo(2);
+
+        BulkJobResult second = memberBulkService.update(jobId, member.team.name.eq(bulkTeamName),
+                update -> update.set(member.age, member.age.add(1)));
+        assertThat(second.isCompleted()).isTrue();
+        assertThat(second.getRows()).isEqualTo(3);
+        assertThat(second.getChunks()).isEqualTo(2);
+        assertThat(ages()).containsExactlyInAnyOrder(11, 21, 31, 41, 51);
+    }
+
+    @Test
+    public void deleteInChunks() {
+        String jobId = jobId("delete-over-18");
+        BulkJobResult result = memberBulkService.delete(jobId,
+                member.team.name.eq(bulkTeamName).and(member.age.gt(18)));
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(ages()).containsExactly(10);
+        assertThat(viewAges()).containsExactly(10);
+        assertThat(stats().getMemberCount()).isEqualTo(1);
+        assertThat(em.find(Member.class, outsiderId)).isNotNull();
+
+        assertThatThrownBy(() -> memberBulkService.update(jobId, member.age.gt(18),
+                update -> update.set(member.age, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("끝난 jobId 를 다른 조건이나 변경으로 다시 부르면 건너뛰지 않고 예외를 던진다")
+    public void rejectReusedJobIdWithDifferentOperation() {
+        String jobId = jobId("age-plus-one");
+        memberBulkService.update(jobId, member.team.name.eq(bulkTeamName), update -> update.set(member.age, member.age.add(1)));
+
+        assertThatThrownBy(() -> memberBulkService.update(jobId, member.team.name.eq(bulkTeamName).and(member.age.gt(20)),
+                update -> update.set(member.age, member.age.add(1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberBulkService.update(jobId, member.team.name.eq(bulkTeamName),
+                update -> update.set(member.age, member.age.add(2))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(ages()).containsExactlyInAnyOrder(11, 21, 31, 41, 51);
+    }
+
+    @Test
+    @DisplayName("username 을 바꾸면 username_lower 도 같이 바뀌고, username_lower 를 직접 바꾸는 update 는 받지 않는다")
+    public void usernameUpdateKeepsLowerCaseColumn() {
+        memberBulkService.update(jobId("rename"), member.team.name.eq(bulkTeamName),
+                update -> update.set(member.username, member.username.concat("-Bulk")));
+
+        assertThat(queryFactory.select(member.usernameLower).from(member).where(member.team.name.eq(bulkTeamName)).fetch())
+                .containsExactlyInAnyOrder("member1-bulk", "member2-bulk", "member3-bulk", "member4-bulk", "member5-bulk");
+        assertThat(viewUsernamesLower()).containsExactlyInAnyOrder(
+                "member1-bulk", "member2-bulk", "member3-bulk", "member4-bulk", "member5-bulk");
+
+        assertThatThrownBy(() -> memberBulkService.update(jobId("lower"), member.team.name.eq(bulkTeamName),
+                update -> update.set(member.usernameLower, "x")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("조건에 team 경로가 있어도 for update 는 member 만 잠근다")
+    public void lockOnlyMemberRows() {
+        StatementCollector.start(Integer.MAX_VALUE);
+        StatementReport report;
+        try {
+            memberBulkService.update(jobId("age-plus-one"), member.team.name.eq(bulkTeamName),
+                    update -> update.set(member.age, member.age.add(1)));
+        } finally {
+            report = StatementCollector.stop();
+        }
+
+        List<String> locks = report.getStatements().stream()
+                .map(StatementReport.SqlStats::getSql)
+                .filter(sql -> sql.contains("for update") && sql.contains(" from member "))
+                .collect(Collectors.toList());
+        assertThat(locks).isNotEmpty().noneMatch(sql -> sql.contains(" team "));
+        assertThat(ages()).containsExactlyInAnyOrder(11, 21, 31, 41, 51);
+    }
+
+    private String jobId(String name) {
+        String jobId = name + "-" + suffix;
+        jobIds.add(jobId);
+        return jobId;
+    }
+
+    private List<Integer> ages() {
+        return queryFactory.select(member.age).from(member).where(member.team.name.eq(bulkTeamName)).fetch();
+    }
+
+    private List<Integer> viewAges() {
+        return queryFactory.select(memberSearchView.age).from(memberSearchView)
+                .where(memberSearchView.teamId.eq(bulkTeamId)).fetch();
+    }
+
+    private List<String> viewUsernamesLower() {
+        return queryFactory.select(memberSearchView.usernameLower).from(memberSearchView)
+                .where(memberSearchView.teamId.eq(bulkTeamId)).fetch();
+    }
+
+    private TeamStatsDto stats() {
+        return teamStatsService.findAll().stream()
+                .filter(stats -> stats.getTeamId().equals(bulkTeamId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
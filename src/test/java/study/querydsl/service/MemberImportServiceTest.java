@@ -0,0 +1,92 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Test
+    public void importCsv() {
+        em.persist(new Team("teamA"));
+
+        String csv = "username,age,teamName\n" +
+                "member1,10,teamA\n" +
+                "\"member, 2\",20,teamA\n" +
+                "member3,30,teamC\n" +
+                "member4,40,\n";
+
+        MemberImportResult result = memberImportService.importMembers(reader(csv, MemberImportReader.TEXT_CSV));
+
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getCreatedTeams()).isEqualTo(1);
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team order by m.age", Member.class)
+                .getResultList();
+        assertThat(members).extracting("username").containsExactly("member1", "member, 2", "member3", "member4");
+        assertThat(members.get(1).getTeam().getName()).isEqualTo("teamA");
+        assertThat(members.get(2).getTeam().getName()).isEqualTo("teamC");
+        assertThat(members.get(3).getTeam()).isNull();
+    }
+
+    @Test
+    public void importNdjson() {
+        String ndjson = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamA\"}\n" +
+                "{\"username\":\"member2\",\"age\":20,\"teamName\":\"teamA\"}\n";
+
+        MemberImportResult result = memberImportService.importMembers(reader(ndjson, MediaType.APPLICATION_NDJSON));
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(result.getCreatedTeams()).isEqualTo(1);
+        assertThat(result.getChunks()).hasSize(1);
+    }
+
+    @Test
+    public void invalidLine() {
+        String csv = "member1,10,teamA\n" +
+                "member2,twenty,teamA\n";
+
+        assertThatThrownBy(() -> memberImportService.importMembers(reader(csv, MemberImportReader.TEXT_CSV)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 2");
+    }
+
+    @Test
+    public void missingAge() {
+        String ndjson = "{\"username\":\"member1\",\"age\":10}\n" +
+                "{\"username\":\"member2\",\"teamName\":\"teamA\"}\n";
+
+        assertThatThrownBy(() -> memberImportService.importMembers(reader(ndjson, MediaType.APPLICATION_NDJSON)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 2: age is required");
+    }
+
+    private MemberImportReader reader(String body, MediaType contentType) {
+        return new MemberImportReader(new BufferedReader(new StringReader(body)), contentType, objectMapper);
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberSearchView;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchViewProperties;
+import study.querydsl.repository.MemberSearchViewStatus;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
+
+@SpringBootTest
+@Transactional
+class MemberSearchViewCheckerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchViewChecker checker;
+
+    @Autowired
+    MemberSearchViewStatus status;
+
+    @Autowired
+    MemberSearchViewProperties properties;
+
+    @Test
+    @DisplayName("회원 추가/변경/삭제와 팀 이름 변경이 flush 때 view 에 반영된다")
+    public void maintainedOnFlush() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(new Member("noTeam", 30));
+        em.flush();
+
+        assertThat(view(member1).getTeamName()).isEqualTo("teamA");
+
+        teamA.setName("teamA2");
+        member1.setUsername("Member1");
+        em.remove(member2);
+        em.flush();
+
+        MemberSearchView row = view(member1);
+        assertThat(row.getTeamName()).isEqualTo("teamA2");
+        assertThat(row.getUsernameLower()).isEqualTo("member1");
+        assertThat(queryFactory.selectFrom(memberSearchView)
+                .where(memberSearchView.memberId.eq(member2.getId()))
+                .fetchOne()).isNull();
+    }
+
+    @Test
+    @DisplayName("스위치를 켜면 같은 결과를 view 에서 읽고, 벌크 연산 뒤에는 view 를 고칠 때까지 조인 쿼리로 돌아간다")
+    public void readFromView() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        List<MemberTeamDto> joined = memberRepository.search(condition);
+
+        properties.setEnabled(true);
+        try {
+            checker.repairPending();
+            assertThat(status.isReadable()).isTrue();
+            assertThat(memberRepository.search(condition)).isEqualTo(joined);
+            assertThat(memberRepository.searchPageSimple(condition, PageRequest.of(0, 10)).getTotalElements())
+                    .isEqualTo(1);
+
+            queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(10))
+                    .where(member.team.eq(teamA))
+                    .execute();
+            assertThat(status.isReadable()).isFalse();
+            assertThat(memberRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(20, 30);
+        } finally {
+            properties.setEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("flush 하지 않은 변경도 view 를 조회하기 전에 auto flush 되어 검색된다")
+    public void autoFlushBeforeViewQuery() {
+        properties.setEnabled(true);
+        try {
+            checker.repairPending();
+            assertThat(status.isReadable()).isTrue();
+
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamA");
+            assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+        } finally {
+            properties.setEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("팀 변경이 커밋되면 그 팀 row 의 팀 이름을 다시 맞춘다")
+    public void resyncChangedTeamNames() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        // 동시에 커밋된 회원 row 처럼 예전 이름을 남긴다
+        em.createNativeQuery("update member_search_view set team_name = 'old' where team_id = ?")
+                .setParameter(1, teamA.getId())
+                .executeUpdate();
+
+        status.teamsResyncFailed(Collections.singleton(teamA.getId()));
+        checker.repairPending();
+
+        assertThat(view(member1).getTeamName()).isEqualTo("teamA");
+        assertThat(status.takeChangedTeams()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("벌크 연산으로 어긋난 view 를 정합성 검사가 고친다")
+    public void checkFixesBulkChanges() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.team.eq(teamA))
+                .execute();
+        assertThat(view(member1).getAge()).isEqualTo(10);
+
+        assertThat(checker.check()).isGreaterThanOrEqualTo(2);
+        assertThat(view(member1).getAge()).isEqualTo(11);
+    }
+
+    // view 는 JDBC 로 갱신되므로 영속성 컨텍스트에 남기지 않고 매번 새로 읽는다
+    private MemberSearchView view(Member target) {
+        MemberSearchView row = queryFactory.selectFrom(memberSearchView)
+                .where(memberSearchView.memberId.eq(target.getId()))
+                .fetchOne();
+        em.detach(row);
+        return row;
+    }
+}
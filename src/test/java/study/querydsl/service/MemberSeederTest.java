@@ -0,0 +1,105 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.event.MemberDataChangedEvent;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * chunk 마다 커밋하므로 테스트 트랜잭션 없이 넣고, 이번에 생긴 팀(id 가 시작 전 최대값보다 큰 팀)을 직접 지운다.
+ */
+@SpringBootTest
+@RecordApplicationEvents
+class MemberSeederTest {
+
+    @Autowired
+    MemberSeeder memberSeeder;
+
+    @Autowired
+    SeedProperties properties;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    ApplicationEvents events;
+
+    private int membersPerTeam;
+    private int chunkSize;
+    private boolean statelessSession;
+    private long lastTeamId;
+
+    @BeforeEach
+    void setUp() {
+        membersPerTeam = properties.getMembersPerTeam();
+        chunkSize = properties.getChunkSize();
+        statelessSession = properties.isStatelessSession();
+        properties.setMembersPerTeam(3);
+        properties.setChunkSize(4);
+        properties.setStatelessSession(true);
+
+        Long maxId = queryFactory.select(team.id.max()).from(team).fetchOne();
+        lastTeamId = maxId == null ? 0 : maxId;
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.setMembersPerTeam(membersPerTeam);
+        properties.setChunkSize(chunkSize);
+        properties.setStatelessSession(statelessSession);
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(memberSearchView).where(memberSearchView.teamId.gt(lastTeamId)).execute();
+            queryFactory.delete(teamStats).where(teamStats.teamId.gt(lastTeamId)).execute();
+            // 벌크 DML 에는 조인을 쓸 수 없으므로 팀 id 로 지운다
+            queryFactory.delete(member)
+                    .where(member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.id.gt(lastTeamId))))
+                    .execute();
+            queryFactory.delete(team).where(team.id.gt(lastTeamId)).execute();
+        });
+    }
+
+    @Test
+    @DisplayName("StatelessSession 으로 넣어도 벌크 이벤트 없이 view 와 team_stats 가 chunk 마다 채워진다")
+    public void statelessSeedMaintainsViewAndStats() {
+        assertThat(memberSeeder.seed()).isEqualTo(2 + 6);
+
+        assertThat(events.stream(MemberDataChangedEvent.class).collect(Collectors.toList()))
+                .isNotEmpty()
+                .noneMatch(MemberDataChangedEvent::isBulk);
+
+        assertThat(queryFactory.select(memberSearchView.age).from(memberSearchView)
+                .where(memberSearchView.teamId.gt(lastTeamId)).fetch())
+                .containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5);
+
+        List<TeamStatsDto> stats = teamStatsService.findAll().stream()
+                .filter(s -> s.getTeamId() > lastTeamId)
+                .collect(Collectors.toList());
+        assertThat(stats).extracting("teamName").containsExactlyInAnyOrder("teamA", "teamB");
+        assertThat(stats).extracting("memberCount").containsOnly(3L);
+        assertThat(stats).extracting("maxAge").containsExactlyInAnyOrder(4, 5);
+    }
+}
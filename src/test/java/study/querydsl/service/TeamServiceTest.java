@@ -0,0 +1,87 @@
+package study.querydsl.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamService teamService;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    @DisplayName("팀이 늘어나도 members 조회 쿼리 수는 같다 (N+1 아님)")
+    public void teamMembersBatchFetch() {
+        createTeams(5, 3);
+        long small = countStatements(() -> {
+            Page<TeamMembersDto> page = teamService.findTeamsWithMembers(PageRequest.of(0, 100));
+            assertThat(page.getContent()).hasSize(5);
+            assertThat(page.getContent()).allSatisfy(team -> assertThat(team.getMembers()).hasSize(3));
+        });
+
+        createTeams(30, 3);
+        long large = countStatements(() -> {
+            Page<TeamMembersDto> page = teamService.findTeamsWithMembers(PageRequest.of(0, 100));
+            assertThat(page.getContent()).hasSize(35);
+        });
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    @DisplayName("회원이 늘어나도 member.getTeam() 조회 쿼리 수는 같다 (N+1 아님)")
+    public void memberTeamBatchFetch() {
+        createTeams(5, 3);
+        long small = countStatements(() -> memberJpaRepository.findAll_Querdsl()
+                .forEach(member -> assertThat(member.getTeam().getName()).isNotNull()));
+
+        createTeams(30, 3);
+        long large = countStatements(() -> memberJpaRepository.findAll_Querdsl()
+                .forEach(member -> assertThat(member.getTeam().getName()).isNotNull()));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    private void createTeams(int teamCount, int membersPerTeam) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+    }
+
+    private long countStatements(Runnable action) {
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll(); // 2차 캐시 히트로 숫자가 달라지지 않게
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
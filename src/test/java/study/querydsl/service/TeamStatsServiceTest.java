@@ -0,0 +1,116 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class TeamStatsServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Test
+    @DisplayName("회원 추가/이동/나이 변경/삭제와 팀 이름 변경이 flush 때 team_stats 에 반영된다")
+    public void incrementalUpdate() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        TeamStatsDto statsA = stats(teamA);
+        assertThat(statsA.getMemberCount()).isEqualTo(3);
+        assertThat(statsA.getAverageAge()).isEqualTo(20.0);
+        assertThat(statsA.getMinAge()).isEqualTo(10);
+        assertThat(statsA.getMaxAge()).isEqualTo(30);
+        assertThat(stats(teamB).getMemberCount()).isZero();
+        assertThat(stats(teamB).getAverageAge()).isNull();
+
+        // 최소 나이 회원이 팀을 옮기고, 최대 나이 회원은 삭제
+        member1.setTeam(teamB);
+        member2.setAge(25);
+        em.remove(member3);
+        teamA.setName("teamA2");
+        em.flush();
+
+        statsA = stats(teamA);
+        assertThat(statsA.getTeamName()).isEqualTo("teamA2");
+        assertThat(statsA.getMemberCount()).isEqualTo(1);
+        assertThat(statsA.getMinAge()).isEqualTo(25);
+        assertThat(statsA.getMaxAge()).isEqualTo(25);
+        TeamStatsDto statsB = stats(teamB);
+        assertThat(statsB.getMemberCount()).isEqualTo(1);
+        assertThat(statsB.getMinAge()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("flush 하지 않은 변경도 team_stats 를 조회하기 전에 auto flush 되어 보인다")
+    public void autoFlushBeforeStatsQuery() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        TeamStatsDto stats = stats(teamA);
+        assertThat(stats.getMemberCount()).isEqualTo(2);
+        assertThat(stats.getAverageAge()).isEqualTo(15.0);
+    }
+
+    @Test
+    @DisplayName("벌크 연산으로 어긋난 요약은 reconcile 이 고친다")
+    public void reconcileAfterBulkUpdate() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.team.eq(teamA))
+                .execute();
+        assertThat(stats(teamA).getMaxAge()).isEqualTo(20);
+
+        assertThat(teamStatsService.reconcile()).isGreaterThanOrEqualTo(1);
+        em.flush();
+        em.clear();
+
+        TeamStatsDto stats = stats(teamA);
+        assertThat(stats.getAverageAge()).isEqualTo(16.0);
+        assertThat(stats.getMinAge()).isEqualTo(11);
+        assertThat(stats.getMaxAge()).isEqualTo(21);
+    }
+
+    private TeamStatsDto stats(Team team) {
+        return teamStatsService.findAll().stream()
+                .filter(stats -> stats.getTeamId().equals(team.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
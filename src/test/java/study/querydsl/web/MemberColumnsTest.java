@@ -0,0 +1,53 @@
+package study.querydsl.web;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    ByteBufferPool pool = new ByteBufferPool(2, 1024);
+    MemberColumnsConverter converter = new MemberColumnsConverter(pool);
+
+    @Test
+    void roundTrip() throws IOException {
+        List<MemberTeamDto> rows = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2", 20, 1L, "teamA"),
+                new MemberTeamDto(3L, "emoji😀", 30, 2L, "teamB"),
+                new MemberTeamDto(4L, null, 40, null, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.write(rows, 100, 2, 4, out);
+        MemberColumns columns = MemberColumnsDecoder.decode(out.toByteArray());
+
+        assertThat(columns.rowCount()).isEqualTo(4);
+        assertThat(columns.getTotalElements()).isEqualTo(100);
+        assertThat(columns.getPage()).isEqualTo(2);
+        assertThat(columns.getSize()).isEqualTo(4);
+        assertThat(columns.toDtos()).isEqualTo(rows);
+    }
+
+    @Test
+    void bufferLargerThanPoolLimitIsNotReused() throws IOException {
+        converter.write(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")), 1, 0, 1, new ByteArrayOutputStream());
+        assertThat(pool.pooled()).isEqualTo(1);
+
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new MemberTeamDto((long) i, "member" + i, i, 1L, "teamA"));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.write(rows, 100, 0, 100, out);
+        assertThat(MemberColumnsDecoder.decode(out.toByteArray()).toDtos()).isEqualTo(rows);
+        // 풀에 있던 작은 버퍼는 꺼내서 버렸고, 새로 만든 큰 버퍼는 돌려놓지 않았다
+        assertThat(pool.pooled()).isZero();
+    }
+}
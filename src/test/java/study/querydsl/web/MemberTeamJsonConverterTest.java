@@ -0,0 +1,45 @@
+package study.querydsl.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberTeamJsonConverterTest {
+
+    MemberTeamJsonConverter converter = new MemberTeamJsonConverter(new JsonFactory());
+
+    @Test
+    void doesNotCloseResponseStream() throws IOException {
+        List<MemberTeamDto> rows = Collections.singletonList(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+        CloseTrackingStream out = new CloseTrackingStream();
+
+        converter.writePage(new PageImpl<>(rows, PageRequest.of(0, 20), 1), out);
+        converter.writeList(rows, out);
+
+        assertThat(out.closed).isFalse();
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo(
+                "{\"content\":[{\"memberId\":1,\"username\":\"member1\",\"age\":10,\"teamId\":1,\"teamName\":\"teamA\"}],"
+                        + "\"totalElements\":1,\"page\":0,\"size\":20}"
+                        + "[{\"memberId\":1,\"username\":\"member1\",\"age\":10,\"teamId\":1,\"teamName\":\"teamA\"}]");
+    }
+
+    static class CloseTrackingStream extends ByteArrayOutputStream {
+
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}